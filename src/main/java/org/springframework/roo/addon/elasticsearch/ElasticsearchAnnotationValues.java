@@ -21,6 +21,34 @@ public class ElasticsearchAnnotationValues extends AbstractAnnotationValues {
 	@AutoPopulate String preRemoveMethod = "preRemove";
 	@AutoPopulate String indexMethod = "index";
 	@AutoPopulate String deleteIndexMethod = "deleteIndex";
+	@AutoPopulate int bulkMaxActions = 1000;
+	@AutoPopulate int bulkMaxBytes = 5242880;
+	@AutoPopulate String reindexMethod = "reindexAll";
+	@AutoPopulate int reindexPageSize = 1000;
+	@AutoPopulate String[] includeFields = {};
+	@AutoPopulate String[] excludeFields = {};
+	@AutoPopulate String[] storedFields = {};
+	@AutoPopulate String[] sourceOnlyFields = {};
+	@AutoPopulate boolean skipMissingEntities = true;
+	@AutoPopulate boolean cacheSearches = false;
+	@AutoPopulate boolean coalesceSearches = false;
+	@AutoPopulate String streamMethod = "stream";
+	@AutoPopulate int scrollBatchSize = 100;
+	@AutoPopulate String scrollKeepAlive = "1m";
+	@AutoPopulate String countMethod = "count";
+	@AutoPopulate String existsMethod = "exists";
+	@AutoPopulate String routingField = "";
+	@AutoPopulate String indexStrategy = "type";
+	@AutoPopulate String indexName = "";
+	@AutoPopulate String timestampField = "";
+	@AutoPopulate String[] facetFields = {};
+	@AutoPopulate int numberOfShards = 5;
+	@AutoPopulate int numberOfReplicas = 1;
+	@AutoPopulate String refreshInterval = "1s";
+	@AutoPopulate boolean bulkLoadReindex = true;
+	@AutoPopulate boolean optimizeAfterReindex = false;
+	@AutoPopulate String suggestMethod = "suggest";
+	@AutoPopulate String[] suggestFields = {};
 	
 	public ElasticsearchAnnotationValues(PhysicalTypeMetadata governorPhysicalTypeMetadata) {
 		super(governorPhysicalTypeMetadata, new JavaType(RooElasticsearchSearchable.class.getName()));
@@ -50,4 +78,116 @@ public class ElasticsearchAnnotationValues extends AbstractAnnotationValues {
 	public String getDeleteIndexMethod() {
 		return deleteIndexMethod;
 	}
+
+	public int getBulkMaxActions() {
+		return bulkMaxActions;
+	}
+
+	public int getBulkMaxBytes() {
+		return bulkMaxBytes;
+	}
+
+	public String getReindexMethod() {
+		return reindexMethod;
+	}
+
+	public int getReindexPageSize() {
+		return reindexPageSize;
+	}
+
+	public String[] getIncludeFields() {
+		return includeFields;
+	}
+
+	public String[] getExcludeFields() {
+		return excludeFields;
+	}
+
+	public String[] getStoredFields() {
+		return storedFields;
+	}
+
+	public String[] getSourceOnlyFields() {
+		return sourceOnlyFields;
+	}
+
+	public boolean isSkipMissingEntities() {
+		return skipMissingEntities;
+	}
+
+	public boolean isCacheSearches() {
+		return cacheSearches;
+	}
+
+	public boolean isCoalesceSearches() {
+		return coalesceSearches;
+	}
+
+	public String getStreamMethod() {
+		return streamMethod;
+	}
+
+	public int getScrollBatchSize() {
+		return scrollBatchSize;
+	}
+
+	public String getScrollKeepAlive() {
+		return scrollKeepAlive;
+	}
+
+	public String getCountMethod() {
+		return countMethod;
+	}
+
+	public String getExistsMethod() {
+		return existsMethod;
+	}
+
+	public String getRoutingField() {
+		return routingField;
+	}
+
+	public String getIndexStrategy() {
+		return indexStrategy;
+	}
+
+	public String getIndexName() {
+		return indexName;
+	}
+
+	public String getTimestampField() {
+		return timestampField;
+	}
+
+	public String[] getFacetFields() {
+		return facetFields;
+	}
+
+	public int getNumberOfShards() {
+		return numberOfShards;
+	}
+
+	public int getNumberOfReplicas() {
+		return numberOfReplicas;
+	}
+
+	public String getRefreshInterval() {
+		return refreshInterval;
+	}
+
+	public boolean isBulkLoadReindex() {
+		return bulkLoadReindex;
+	}
+
+	public boolean isOptimizeAfterReindex() {
+		return optimizeAfterReindex;
+	}
+
+	public String getSuggestMethod() {
+		return suggestMethod;
+	}
+
+	public String[] getSuggestFields() {
+		return suggestFields;
+	}
 }
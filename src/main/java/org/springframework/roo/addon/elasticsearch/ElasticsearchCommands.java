@@ -25,7 +25,7 @@ public class ElasticsearchCommands implements CommandMarker { // All command typ
 	
 	@CliAvailabilityIndicator({"elasticsearch add","elasticsearch all"})
 	public boolean elasticsearchCommandAvailable() {
-		return searchOperations.isSearchAvailable() && searchOperations.isJsonAddonAvailable();
+		return searchOperations.isSearchAvailable();
 	}
 	
 	@CliCommand(value="elasticsearch setup", help="Install a support for elasticsearch search integration")
@@ -13,15 +13,7 @@ import org.springframework.roo.addon.web.mvc.controller.scaffold.mvc.WebScaffold
 import org.springframework.roo.addon.web.mvc.jsp.menu.MenuOperations;
 import org.springframework.roo.addon.web.mvc.jsp.tiles.TilesOperations;
 import org.springframework.roo.addon.web.mvc.jsp.tiles.TilesOperationsImpl;
-import org.springframework.roo.classpath.PhysicalTypeIdentifier;
-import org.springframework.roo.classpath.PhysicalTypeMetadata;
-import org.springframework.roo.classpath.details.BeanInfoUtils;
-import org.springframework.roo.classpath.details.ClassOrInterfaceTypeDetails;
 import org.springframework.roo.classpath.details.FieldMetadata;
-import org.springframework.roo.classpath.details.MemberFindingUtils;
-import org.springframework.roo.classpath.details.MethodMetadata;
-import org.springframework.roo.classpath.scanner.MemberDetails;
-import org.springframework.roo.classpath.scanner.MemberDetailsScanner;
 import org.springframework.roo.metadata.MetadataDependencyRegistry;
 import org.springframework.roo.metadata.MetadataIdentificationUtils;
 import org.springframework.roo.metadata.MetadataItem;
@@ -57,11 +49,11 @@ public final class ElasticsearchJspMetadataListener implements MetadataProvider,
 	@Reference private FileManager fileManager;
 	@Reference private TilesOperations tilesOperations;
 	@Reference private MenuOperations menuOperations;
-	@Reference private MemberDetailsScanner memberDetailsScanner;
 	@Reference private ProjectOperations projectOperations;
 	
 	private WebScaffoldMetadata webScaffoldMetadata;
 	private EntityMetadata entityMetadata;
+	private ElasticsearchMetadata elasticsearchMetadata;
 	private JavaType javaType;
 	private JavaType formbackingObject;
 	
@@ -86,6 +78,9 @@ public final class ElasticsearchJspMetadataListener implements MetadataProvider,
 		entityMetadata = (EntityMetadata) metadataService.get(EntityMetadata.createIdentifier(formbackingObject, path));
 		Assert.notNull(entityMetadata, "Could not determine entity metadata for type: " + javaType.getFullyQualifiedTypeName());
 		
+		elasticsearchMetadata = (ElasticsearchMetadata) metadataService.get(ElasticsearchMetadata.createIdentifier(formbackingObject, Path.SRC_MAIN_JAVA));
+		Assert.notNull(elasticsearchMetadata, "Could not determine Elasticsearch metadata for type: " + formbackingObject.getFullyQualifiedTypeName());
+		
 		installMvcArtifacts(javaType, path);
 		
 		return new ElasticsearchJspMetadata(metadataIdentificationString, webSearchMetadata);
@@ -133,40 +128,22 @@ public final class ElasticsearchJspMetadataListener implements MetadataProvider,
 									.addAttribute("delete", "false")
 									.addAttribute("update", "false")
 									.addAttribute("path", webScaffoldMetadata.getAnnotationValues().getPath())
-									.addAttribute("typeIdFieldName", formbackingObject.getSimpleTypeName().toLowerCase() + "." + entityMetadata.getIdentifierField().getFieldName().getSymbolName().toLowerCase() + ElasticsearchUtils.getElasticsearchDynamicFieldPostFix(entityMetadata.getIdentifierField().getFieldType()))
+									.addAttribute("typeIdFieldName", entityMetadata.getIdentifierField().getFieldName().getSymbolName())
 								.build();
 		resultTable.setAttribute("z", XmlRoundTripUtils.calculateUniqueKeyFor(resultTable));
 					
 		StringBuilder facetFields = new StringBuilder();
-		int fieldCounter = 0;
-		
-		PhysicalTypeMetadata formBackingObjectPhysicalTypeMetadata = (PhysicalTypeMetadata) metadataService.get(PhysicalTypeIdentifier.createIdentifier(formbackingObject, Path.SRC_MAIN_JAVA));
-		Assert.notNull(formBackingObjectPhysicalTypeMetadata, "Unable to obtain physical type metadata for type " + formbackingObject.getFullyQualifiedTypeName());
-		ClassOrInterfaceTypeDetails formbackingClassOrInterfaceDetails = (ClassOrInterfaceTypeDetails) formBackingObjectPhysicalTypeMetadata.getMemberHoldingTypeDetails();
-		MemberDetails memberDetails = memberDetailsScanner.getMemberDetails(getClass().getName(), formbackingClassOrInterfaceDetails);
-		
-		for (MethodMetadata method : MemberFindingUtils.getMethods(memberDetails)) {
-			// Only interested in accessors
-			if (!BeanInfoUtils.isAccessorMethod(method)) {
-				continue;
-			}
-			if(++fieldCounter < 7) {
-				if (method.getMethodName().equals(entityMetadata.getIdentifierAccessor().getMethodName()) ||
-						method.getMethodName().equals(entityMetadata.getVersionAccessor().getMethodName())) {
-					continue;
-				}
-				FieldMetadata field = BeanInfoUtils.getFieldForPropertyName(memberDetails, BeanInfoUtils.getPropertyNameForJavaBeanMethod(method));
-				Assert.notNull(field, "Could not determine field for accessor: " + method.getMethodName());
-				
-				facetFields.append(formbackingObject.getSimpleTypeName().toLowerCase()).append(".").append(field.getFieldName()).append(ElasticsearchUtils.getElasticsearchDynamicFieldPostFix(field.getFieldType())).append(",");
-				
-				Element columnElement = new XmlElementBuilder("fields:column", document)
-											.addAttribute("id", XmlUtils.convertId("c:" + formbackingObject.getFullyQualifiedTypeName() + "." + field.getFieldName().getSymbolName()))
-											.addAttribute("property", formbackingObject.getSimpleTypeName().toLowerCase() + "." + field.getFieldName().getSymbolName().toLowerCase() + ElasticsearchUtils.getElasticsearchDynamicFieldPostFix(field.getFieldType()))
-										.build();
-				columnElement.setAttribute("z", XmlRoundTripUtils.calculateUniqueKeyFor(columnElement));
-				resultTable.appendChild(columnElement);
-			}
+		for (String facetField : elasticsearchMetadata.getAnnotationValues().getFacetFields()) {
+			facetFields.append(facetField).append(",");
+		}
+		for (FieldMetadata field : elasticsearchMetadata.getResultFields()) {
+			// Search results are entities built from the projected fields of each hit
+			Element columnElement = new XmlElementBuilder("fields:column", document)
+										.addAttribute("id", XmlUtils.convertId("c:" + formbackingObject.getFullyQualifiedTypeName() + "." + field.getFieldName().getSymbolName()))
+										.addAttribute("property", field.getFieldName().getSymbolName())
+									.build();
+			columnElement.setAttribute("z", XmlRoundTripUtils.calculateUniqueKeyFor(columnElement));
+			resultTable.appendChild(columnElement);
 		}
 		
 		Element searchFacet = new XmlElementBuilder("fields:search-facet", document)
@@ -2,6 +2,10 @@ package org.springframework.roo.addon.elasticsearch;
 
 import java.lang.reflect.Modifier;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -34,18 +38,34 @@ import org.springframework.roo.support.util.StringUtils;
  * @since 1.1.0
  */
 public class ElasticsearchMetadata extends AbstractItdTypeDetailsProvidingMetadataItem {
+	private static final int MAX_RESULT_FIELDS = 6;
+	private static final int SUGGEST_SIZE = 10;
+	private static final int SUGGEST_MAX_GRAM = 20;
+	private static final String SUGGEST_FIELD = "suggest";
+	private static final List<String> INDEX_STRATEGIES = Arrays.asList("app", "type", "daily", "monthly");
 	private static final String PROVIDES_TYPE_STRING = ElasticsearchMetadata.class.getName();
 	private static final String PROVIDES_TYPE = MetadataIdentificationUtils.create(PROVIDES_TYPE_STRING);
 	private ElasticsearchAnnotationValues annotationValues;
 	private String beanPlural;
 	private String javaBeanFieldName;
+	private Map<MethodMetadata, FieldMetadata> indexedAccessors;
+	private List<FieldMetadata> resultFields;
+	private MethodMetadata routingAccessor;
+	private FieldMetadata routingField;
+	private String indexName;
+	private MethodMetadata timestampAccessor;
+	private FieldMetadata timestampField;
+	private Map<MethodMetadata, FieldMetadata> suggestAccessors;
+	private Map<JavaSymbolName, MethodMetadata> mutatorDetails;
 
-	public ElasticsearchMetadata(String identifier, JavaType aspectName, ElasticsearchAnnotationValues annotationValues, PhysicalTypeMetadata governorPhysicalTypeMetadata, MethodMetadata identifierAccessor, FieldMetadata versionField, Map<MethodMetadata, FieldMetadata> accessorDetails, String javaTypePlural) {
+	public ElasticsearchMetadata(String identifier, JavaType aspectName, ElasticsearchAnnotationValues annotationValues, PhysicalTypeMetadata governorPhysicalTypeMetadata, FieldMetadata identifierField, MethodMetadata identifierAccessor, FieldMetadata versionField, Map<MethodMetadata, FieldMetadata> accessorDetails, Map<JavaSymbolName, MethodMetadata> mutatorDetails, String javaTypePlural) {
 		super(identifier, aspectName, governorPhysicalTypeMetadata);
 		Assert.notNull(annotationValues, "Elasticsearch annotation values required");
 		Assert.isTrue(isValid(identifier), "Metadata identification string '" + identifier + "' does not appear to be a valid");
+		Assert.notNull(identifierField, "Persistence identifier field metadata required");
 		Assert.notNull(identifierAccessor, "Persistence identifier method metadata required");
 		Assert.notNull(accessorDetails, "Metadata for public accessors requred");
+		Assert.notNull(mutatorDetails, "Metadata for public mutators required");
 		Assert.hasText(javaTypePlural, "Plural representation of java type required");
 
 		if (!isValid()) {
@@ -57,7 +77,76 @@ public class ElasticsearchMetadata extends AbstractItdTypeDetailsProvidingMetada
 		}
 		this.annotationValues = annotationValues;
 		this.beanPlural = javaTypePlural;
-		
+		this.mutatorDetails = mutatorDetails;
+		this.indexedAccessors = new LinkedHashMap<MethodMetadata, FieldMetadata>();
+		List<String> includeFields = Arrays.asList(annotationValues.getIncludeFields());
+		List<String> excludeFields = Arrays.asList(annotationValues.getExcludeFields());
+		for (Map.Entry<MethodMetadata, FieldMetadata> accessor : accessorDetails.entrySet()) {
+			String fieldName = accessor.getValue().getFieldName().getSymbolName();
+			if (!includeFields.isEmpty() && !includeFields.contains(fieldName)) {
+				continue;
+			}
+			if (!excludeFields.contains(fieldName) && ElasticsearchUtils.isIndexableField(accessor.getValue())) {
+				indexedAccessors.put(accessor.getKey(), accessor.getValue());
+			}
+		}
+		this.resultFields = new ArrayList<FieldMetadata>();
+		for (FieldMetadata field : indexedAccessors.values()) {
+			if (resultFields.size() < MAX_RESULT_FIELDS && !field.getFieldName().equals(identifierField.getFieldName()) && (versionField == null || !field.getFieldName().equals(versionField.getFieldName()))) {
+				resultFields.add(field);
+			}
+		}
+		MethodMetadata versionAccessor = null;
+		if (versionField != null) {
+			for (Map.Entry<MethodMetadata, FieldMetadata> accessor : accessorDetails.entrySet()) {
+				if (accessor.getValue().getFieldName().equals(versionField.getFieldName())) {
+					versionAccessor = accessor.getKey();
+				}
+			}
+		}
+		if (StringUtils.hasText(annotationValues.getRoutingField())) {
+			for (Map.Entry<MethodMetadata, FieldMetadata> accessor : accessorDetails.entrySet()) {
+				if (accessor.getValue().getFieldName().getSymbolName().equals(annotationValues.getRoutingField())) {
+					this.routingAccessor = accessor.getKey();
+					this.routingField = accessor.getValue();
+				}
+			}
+			Assert.notNull(routingAccessor, "Routing field '" + annotationValues.getRoutingField() + "' is not a property of " + destination.getFullyQualifiedTypeName());
+			Assert.isTrue(ElasticsearchUtils.isIndexableField(routingField), "Routing field '" + annotationValues.getRoutingField() + "' must be of a simple type");
+		}
+		Assert.isTrue(INDEX_STRATEGIES.contains(annotationValues.getIndexStrategy()), "Index strategy '" + annotationValues.getIndexStrategy() + "' is not one of " + INDEX_STRATEGIES);
+		Assert.isTrue(!"app".equals(annotationValues.getIndexStrategy()) || StringUtils.hasText(annotationValues.getIndexName()), "An index name is required by the 'app' index strategy");
+		this.indexName = StringUtils.hasText(annotationValues.getIndexName()) ? annotationValues.getIndexName() : destination.getSimpleTypeName().toLowerCase();
+		if (isTimeBased()) {
+			for (Map.Entry<MethodMetadata, FieldMetadata> accessor : accessorDetails.entrySet()) {
+				if (accessor.getValue().getFieldName().getSymbolName().equals(annotationValues.getTimestampField())) {
+					this.timestampAccessor = accessor.getKey();
+					this.timestampField = accessor.getValue();
+				}
+			}
+			Assert.notNull(timestampAccessor, "The '" + annotationValues.getIndexStrategy() + "' index strategy requires a timestamp field of " + destination.getFullyQualifiedTypeName());
+			Assert.isTrue(timestampField.getFieldType().equals(ElasticsearchUtils.DATE) || timestampField.getFieldType().equals(ElasticsearchUtils.CALENDAR), "Timestamp field '" + annotationValues.getTimestampField() + "' must be a Date or Calendar");
+		}
+		this.suggestAccessors = new LinkedHashMap<MethodMetadata, FieldMetadata>();
+		if (isSuggestable()) {
+			for (String suggestField : annotationValues.getSuggestFields()) {
+				MethodMetadata suggestAccessor = null;
+				for (Map.Entry<MethodMetadata, FieldMetadata> accessor : accessorDetails.entrySet()) {
+					if (accessor.getValue().getFieldName().getSymbolName().equals(suggestField)) {
+						suggestAccessor = accessor.getKey();
+						suggestAccessors.put(accessor.getKey(), accessor.getValue());
+					}
+				}
+				Assert.notNull(suggestAccessor, "Suggest field '" + suggestField + "' is not a property of " + destination.getFullyQualifiedTypeName());
+				Assert.isTrue(suggestAccessors.get(suggestAccessor).getFieldType().equals(JavaType.STRING_OBJECT), "Suggest field '" + suggestField + "' must be a String");
+				// Suggestions are labelled from the document source, which only holds the indexed fields
+				Assert.isTrue(indexedAccessors.containsKey(suggestAccessor), "Suggest field '" + suggestField + "' is excluded from the index of " + destination.getFullyQualifiedTypeName());
+			}
+			for (FieldMetadata field : indexedAccessors.values()) {
+				Assert.isTrue(!field.getFieldName().getSymbolName().equals(SUGGEST_FIELD), "The '" + SUGGEST_FIELD + "' property of " + destination.getFullyQualifiedTypeName() + " clashes with the suggest field, exclude it from the index");
+			}
+		}
+
 		if (Modifier.isAbstract(governorTypeDetails.getModifier())) {
 			// TODO Do something with supertype
 			return;
@@ -69,22 +158,71 @@ public class ElasticsearchMetadata extends AbstractItdTypeDetailsProvidingMetada
 		}
 		if (StringUtils.hasText(annotationValues.getSearchMethod())) {
 			builder.addMethod(getSearchMethod());
+			builder.addMethod(getSearchFieldsMethod());
+			builder.addMethod(getSearchRequestMethod());
+			builder.addMethod(getSearchEntitiesMethod());
+			builder.addMethod(getFindEntitiesForHitsMethod(identifierField, identifierAccessor));
+			builder.addMethod(getFromSourceMethod(identifierField, versionField));
+			builder.addMethod(getFromHitMethod(identifierField));
+			builder.addMethod(getSearchEntitiesFromSourceMethod());
+			if (StringUtils.hasText(annotationValues.getStreamMethod())) {
+				builder.addMethod(getStreamEntitiesMethod());
+			}
+			if (routingAccessor != null) {
+				builder.addMethod(getRoutedSearchRequestMethod());
+				builder.addMethod(getRoutedSearchEntitiesMethod());
+			}
+			if (isTimeBased()) {
+				builder.addMethod(getTimeRangeSearchRequestMethod());
+				builder.addMethod(getTimeRangeSearchEntitiesMethod());
+			}
+		}
+		if (StringUtils.hasText(annotationValues.getCountMethod())) {
+			builder.addMethod(getCountMethod());
+			if (routingAccessor != null) {
+				builder.addMethod(getRoutedCountMethod());
+			}
+		}
+		if (StringUtils.hasText(annotationValues.getExistsMethod())) {
+			builder.addMethod(getExistsMethod());
+		}
+		if (StringUtils.hasText(annotationValues.getSuggestMethod())) {
+			builder.addMethod(getSuggestMethod());
 		}
 		if (StringUtils.hasText(annotationValues.getIndexMethod())) {
+			builder.addMethod(getSourceMethod());
+			builder.addMethod(getMappingMethod());
+			builder.addMethod(getSettingsMethod());
+			builder.addMethod(getCreateIndexMethod());
+			builder.addMethod(getIndexRequestMethod(identifierAccessor, versionAccessor));
 			builder.addMethod(getIndexEntityMethod());
-			builder.addMethod(getIndexEntitiesMethod(accessorDetails, identifierAccessor, versionField));
+			builder.addMethod(getIndexEntitiesMethod());
+			builder.addMethod(getReplayDeadLettersMethod());
+			if (StringUtils.hasText(annotationValues.getReindexMethod())) {
+				builder.addMethod(getReindexAllMethod(identifierField, identifierAccessor));
+			}
 		}
 		if (StringUtils.hasText(annotationValues.getDeleteIndexMethod())) {
 			builder.addMethod(getDeleteIndexMethod(identifierAccessor));
+			builder.addMethod(getDeleteIndexEntitiesMethod(identifierAccessor));
+			builder.addMethod(getDeleteIndexByQueryMethod());
 		}
 		if (StringUtils.hasText(annotationValues.getPostPersistOrUpdateMethod())) {
-			builder.addMethod(getPostPersistOrUpdateMethod());
+			builder.addMethod(getPostPersistOrUpdateMethod(identifierAccessor));
 		}
 		if (StringUtils.hasText(annotationValues.getPreRemoveMethod())) {
-			builder.addMethod(getPreRemoveMethod());
+			builder.addMethod(getPreRemoveMethod(identifierAccessor));
 		}
 
 		builder.addMethod(getEsNodeMethod());
+		if (annotationValues.isCacheSearches()) {
+			builder.addField(getEsSearchCacheField());
+			builder.addMethod(getEsSearchCacheMethod());
+		}
+		if (StringUtils.hasText(annotationValues.getIndexMethod()) || StringUtils.hasText(annotationValues.getDeleteIndexMethod())) {
+			builder.addField(getEsBulkProcessorField());
+			builder.addMethod(getEsBulkProcessorMethod());
+		}
 
 		// Create a representation of the desired output ITD
 		itdTypeDetails = builder.build();
@@ -94,6 +232,20 @@ public class ElasticsearchMetadata extends AbstractItdTypeDetailsProvidingMetada
 		return annotationValues;
 	}
 
+	public String getPlural() {
+		return beanPlural;
+	}
+
+	/**
+	 * Returns the indexed fields shown in search result listings, at most six of them and never the identifier 
+	 * or version.
+	 * 
+	 * @return the result fields
+	 */
+	public List<FieldMetadata> getResultFields() {
+		return resultFields;
+	}
+
 	private FieldMetadata getEsClientField() {
 		JavaSymbolName fieldName = new JavaSymbolName("esClient");
 		List<AnnotationMetadataBuilder> autowired = new ArrayList<AnnotationMetadataBuilder>();
@@ -103,7 +255,25 @@ public class ElasticsearchMetadata extends AbstractItdTypeDetailsProvidingMetada
 		return new FieldMetadataBuilder(getId(), Modifier.TRANSIENT, autowired, fieldName, new JavaType("org.elasticsearch.client.Client")).build();
 	}
 
-	private MethodMetadata getPostPersistOrUpdateMethod() {
+	private FieldMetadata getEsBulkProcessorField() {
+		JavaSymbolName fieldName = new JavaSymbolName("esBulkProcessor");
+		List<AnnotationMetadataBuilder> autowired = new ArrayList<AnnotationMetadataBuilder>();
+		autowired.add(new AnnotationMetadataBuilder(new JavaType("org.springframework.beans.factory.annotation.Autowired")));
+		FieldMetadata fieldMd = MemberFindingUtils.getDeclaredField(governorTypeDetails, fieldName);
+		if (fieldMd != null) return fieldMd;
+		return new FieldMetadataBuilder(getId(), Modifier.TRANSIENT, autowired, fieldName, getRuntimeType(ElasticsearchOperations.ES_BULK_PROCESSOR_SIMPLE_TYPE)).build();
+	}
+
+	private FieldMetadata getEsSearchCacheField() {
+		JavaSymbolName fieldName = new JavaSymbolName("esSearchCache");
+		List<AnnotationMetadataBuilder> autowired = new ArrayList<AnnotationMetadataBuilder>();
+		autowired.add(new AnnotationMetadataBuilder(new JavaType("org.springframework.beans.factory.annotation.Autowired")));
+		FieldMetadata fieldMd = MemberFindingUtils.getDeclaredField(governorTypeDetails, fieldName);
+		if (fieldMd != null) return fieldMd;
+		return new FieldMetadataBuilder(getId(), Modifier.TRANSIENT, autowired, fieldName, getRuntimeType(ElasticsearchOperations.ES_SEARCH_CACHE_SIMPLE_TYPE)).build();
+	}
+
+	private MethodMetadata getPostPersistOrUpdateMethod(MethodMetadata identifierAccessor) {
 		JavaSymbolName methodName = new JavaSymbolName(annotationValues.getPostPersistOrUpdateMethod());
 		MethodMetadata postPersistOrUpdate = MemberFindingUtils.getMethod(governorTypeDetails, methodName, new ArrayList<JavaType>());
 		if (postPersistOrUpdate != null) return postPersistOrUpdate;
@@ -111,14 +281,273 @@ public class ElasticsearchMetadata extends AbstractItdTypeDetailsProvidingMetada
 		List<AnnotationMetadataBuilder> annotations = new ArrayList<AnnotationMetadataBuilder>();
 		annotations.add(new AnnotationMetadataBuilder(new JavaType("javax.persistence.PostUpdate")));
 		annotations.add(new AnnotationMetadataBuilder(new JavaType("javax.persistence.PostPersist")));
+		// Defer indexing until the surrounding transaction has committed, so a transaction results in a single bulk request
+		String sIndexerId = getSimpleName(getRuntimeType(ElasticsearchOperations.ES_TRANSACTION_INDEXER_SIMPLE_TYPE));
+		String sEntityId = getSimpleName(destination);
 		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
+		bodyBuilder.appendFormalLine("if (" + sIndexerId + ".isActive()) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine(sIndexerId + ".register(" + sEntityId + ".class, " + identifierAccessor.getMethodName() + "(), this, new " + sIndexerId + ".Callback<" + sEntityId + ">() {");
+		appendTransactionCallback(bodyBuilder);
+		bodyBuilder.appendFormalLine("} else {");
+		bodyBuilder.indent();
 		bodyBuilder.appendFormalLine(annotationValues.getIndexMethod() + destination.getSimpleTypeName() + "(this);");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
 
 		MethodMetadataBuilder methodBuilder = new MethodMetadataBuilder(getId(), Modifier.PRIVATE, methodName, JavaType.VOID_PRIMITIVE, bodyBuilder);
 		methodBuilder.setAnnotations(annotations);
 		return methodBuilder.build();
 	}
 
+	/**
+	 * Appends the body of the transaction indexer callback and closes the register call, the same callback is registered
+	 * by the persist, update and remove listeners since they share one indexer per transaction.
+	 */
+	private void appendTransactionCallback(InvocableMemberBodyBuilder bodyBuilder) {
+		String sEntityId = getSimpleName(destination);
+		String entities = beanPlural.toLowerCase();
+		String sCollectionId = getSimpleName(new JavaType(Collection.class.getName()));
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("public void index(" + sCollectionId + "<" + sEntityId + "> " + entities + ") {");
+		if (StringUtils.hasText(annotationValues.getIndexMethod())) {
+			bodyBuilder.indent();
+			bodyBuilder.appendFormalLine(sEntityId + "." + annotationValues.getIndexMethod() + beanPlural + "(" + entities + ");");
+			bodyBuilder.indentRemove();
+		}
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.appendFormalLine("public void delete(" + sCollectionId + "<" + sEntityId + "> " + entities + ") {");
+		if (StringUtils.hasText(annotationValues.getDeleteIndexMethod())) {
+			bodyBuilder.indent();
+			bodyBuilder.appendFormalLine(sEntityId + "." + annotationValues.getDeleteIndexMethod() + "(" + entities + ");");
+			bodyBuilder.indentRemove();
+		}
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("});");
+		bodyBuilder.indentRemove();
+	}
+
+	private MethodMetadata getSourceMethod() {
+		JavaSymbolName methodName = getSourceMethodName();
+		MethodMetadata sourceMethod = MemberFindingUtils.getMethod(governorTypeDetails, methodName, new ArrayList<JavaType>());
+		if (sourceMethod != null) return sourceMethod;
+
+		JavaType xContentBuilder = new JavaType("org.elasticsearch.common.xcontent.XContentBuilder");
+		JavaType xContentFactory = new JavaType("org.elasticsearch.common.xcontent.XContentFactory");
+
+		// Write each indexed property straight into the document, no reflection and no intermediate JSON string
+		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
+		bodyBuilder.appendFormalLine("try {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine(getSimpleName(xContentBuilder) + " source = " + getSimpleName(xContentFactory) + ".jsonBuilder().startObject();");
+		for (Map.Entry<MethodMetadata, FieldMetadata> accessor : indexedAccessors.entrySet()) {
+			String getter = accessor.getKey().getMethodName().getSymbolName() + "()";
+			FieldMetadata field = accessor.getValue();
+			String line = "source.field(\"" + field.getFieldName().getSymbolName() + "\", " + getSourceValue(getter, field) + ");";
+			if (field.getFieldType().isPrimitive()) {
+				bodyBuilder.appendFormalLine(line);
+			} else {
+				bodyBuilder.appendFormalLine("if (" + getter + " != null) " + line);
+			}
+		}
+		if (isSuggestable()) {
+			// The suggest fields are copied into one field, analyzed into the prefixes a user may type
+			bodyBuilder.appendFormalLine("source.startArray(\"" + SUGGEST_FIELD + "\");");
+			for (MethodMetadata accessor : suggestAccessors.keySet()) {
+				String getter = accessor.getMethodName().getSymbolName() + "()";
+				bodyBuilder.appendFormalLine("if (" + getter + " != null) source.value(" + getter + ");");
+			}
+			bodyBuilder.appendFormalLine("source.endArray();");
+		}
+		bodyBuilder.appendFormalLine("return source.endObject();");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("} catch (" + getSimpleName(new JavaType("java.io.IOException")) + " e) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("throw new IllegalStateException(\"Unable to build Elasticsearch source for " + destination.getSimpleTypeName() + "\", e);");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+
+		MethodMetadataBuilder methodBuilder = new MethodMetadataBuilder(getId(), Modifier.PUBLIC, methodName, xContentBuilder, bodyBuilder);
+		return methodBuilder.build();
+	}
+
+	private MethodMetadata getMappingMethod() {
+		JavaSymbolName methodName = getMappingMethodName();
+		MethodMetadata mappingMethod = MemberFindingUtils.getMethod(governorTypeDetails, methodName, new ArrayList<JavaType>());
+		if (mappingMethod != null) return mappingMethod;
+
+		JavaType xContentBuilder = new JavaType("org.elasticsearch.common.xcontent.XContentBuilder");
+		JavaType xContentFactory = new JavaType("org.elasticsearch.common.xcontent.XContentFactory");
+		List<String> storedFields = Arrays.asList(annotationValues.getStoredFields());
+		List<String> sourceOnlyFields = Arrays.asList(annotationValues.getSourceOnlyFields());
+		List<String> facetFields = Arrays.asList(annotationValues.getFacetFields());
+
+		// Every indexed property is mapped up front, nothing is left to dynamic mapping
+		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
+		bodyBuilder.appendFormalLine("try {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine(getSimpleName(xContentBuilder) + " mapping = " + getSimpleName(xContentFactory) + ".jsonBuilder().startObject().startObject(\"" + getTypeName() + "\").startObject(\"properties\");");
+		for (FieldMetadata field : indexedAccessors.values()) {
+			String fieldName = field.getFieldName().getSymbolName();
+			String fieldType = ElasticsearchUtils.getElasticsearchFieldType(field);
+			StringBuilder line = new StringBuilder("mapping.startObject(\"" + fieldName + "\").field(\"type\", \"" + fieldType + "\")");
+			if (storedFields.contains(fieldName)) {
+				line.append(".field(\"store\", \"yes\")");
+			}
+			if (sourceOnlyFields.contains(fieldName)) {
+				line.append(".field(\"index\", \"no\")");
+			} else if (facetFields.contains(fieldName) || ElasticsearchUtils.isKeywordField(field)) {
+				line.append(".field(\"index\", \"not_analyzed\")");
+			}
+			// Only free text is worth copying into _all
+			if (!"string".equals(fieldType) || sourceOnlyFields.contains(fieldName) || facetFields.contains(fieldName) || ElasticsearchUtils.isKeywordField(field)) {
+				line.append(".field(\"include_in_all\", false)");
+			}
+			bodyBuilder.appendFormalLine(line.append(".endObject();").toString());
+		}
+		if (isSuggestable()) {
+			// Edge n-grams are indexed while the typed prefix is only lowercased, so a prefix matches whole terms
+			bodyBuilder.appendFormalLine("mapping.startObject(\"" + SUGGEST_FIELD + "\").field(\"type\", \"string\").field(\"index_analyzer\", \"suggest_index\").field(\"search_analyzer\", \"suggest_search\").field(\"include_in_all\", false).endObject();");
+		}
+		bodyBuilder.appendFormalLine("return mapping.endObject().endObject().endObject();");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("} catch (" + getSimpleName(new JavaType("java.io.IOException")) + " e) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("throw new IllegalStateException(\"Unable to build Elasticsearch mapping for " + destination.getSimpleTypeName() + "\", e);");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+
+		MethodMetadataBuilder methodBuilder = new MethodMetadataBuilder(getId(), Modifier.PUBLIC | Modifier.STATIC, methodName, xContentBuilder, bodyBuilder);
+		return methodBuilder.build();
+	}
+
+	private MethodMetadata getSettingsMethod() {
+		JavaSymbolName methodName = getSettingsMethodName();
+		MethodMetadata settingsMethod = MemberFindingUtils.getMethod(governorTypeDetails, methodName, new ArrayList<JavaType>());
+		if (settingsMethod != null) return settingsMethod;
+
+		JavaType settings = new JavaType("org.elasticsearch.common.settings.Settings");
+
+		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
+		bodyBuilder.appendFormalLine("return " + getSimpleName(new JavaType("org.elasticsearch.common.settings.ImmutableSettings")) + ".settingsBuilder()");
+		bodyBuilder.appendFormalLine("        .put(\"number_of_shards\", " + annotationValues.getNumberOfShards() + ")");
+		bodyBuilder.appendFormalLine("        .put(\"number_of_replicas\", " + annotationValues.getNumberOfReplicas() + ")");
+		bodyBuilder.appendFormalLine("        .put(\"refresh_interval\", \"" + annotationValues.getRefreshInterval() + "\")");
+		if (isSuggestable()) {
+			bodyBuilder.appendFormalLine("        .put(\"analysis.filter.suggest_edge_ngram.type\", \"edgeNGram\")");
+			bodyBuilder.appendFormalLine("        .put(\"analysis.filter.suggest_edge_ngram.min_gram\", 1)");
+			bodyBuilder.appendFormalLine("        .put(\"analysis.filter.suggest_edge_ngram.max_gram\", " + SUGGEST_MAX_GRAM + ")");
+			bodyBuilder.appendFormalLine("        .put(\"analysis.analyzer.suggest_index.tokenizer\", \"standard\")");
+			bodyBuilder.appendFormalLine("        .putArray(\"analysis.analyzer.suggest_index.filter\", \"lowercase\", \"suggest_edge_ngram\")");
+			bodyBuilder.appendFormalLine("        .put(\"analysis.analyzer.suggest_search.tokenizer\", \"standard\")");
+			bodyBuilder.appendFormalLine("        .putArray(\"analysis.analyzer.suggest_search.filter\", \"lowercase\")");
+		}
+		bodyBuilder.appendFormalLine("        .build();");
+
+		MethodMetadataBuilder methodBuilder = new MethodMetadataBuilder(getId(), Modifier.PUBLIC | Modifier.STATIC, methodName, settings, bodyBuilder);
+		return methodBuilder.build();
+	}
+
+	private MethodMetadata getCreateIndexMethod() {
+		JavaSymbolName methodName = new JavaSymbolName("createElasticsearchIndex");
+		MethodMetadata createIndexMethod = MemberFindingUtils.getMethod(governorTypeDetails, methodName, new ArrayList<JavaType>());
+		if (createIndexMethod != null) return createIndexMethod;
+
+		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
+		bodyBuilder.appendFormalLine("String mapping;");
+		bodyBuilder.appendFormalLine("try {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("mapping = " + getMappingMethodName() + "().string();");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("} catch (" + getSimpleName(new JavaType("java.io.IOException")) + " e) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("throw new IllegalStateException(\"Unable to build Elasticsearch mapping for " + destination.getSimpleTypeName() + "\", e);");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		if (isTimeBased()) {
+			// Buckets are created as documents arrive, a template hands them the settings and mapping
+			bodyBuilder.appendFormalLine("esClient().admin().indices().preparePutTemplate(\"" + indexName + "-" + getTypeName() + "\")");
+			bodyBuilder.appendFormalLine("        .setTemplate(\"" + indexName + "-*\")");
+			bodyBuilder.appendFormalLine("        .setSettings(" + getSettingsMethodName() + "())");
+			bodyBuilder.appendFormalLine("        .addMapping(\"" + getTypeName() + "\", mapping)");
+			bodyBuilder.appendFormalLine("        .execute().actionGet();");
+		} else {
+			bodyBuilder.appendFormalLine("try {");
+			bodyBuilder.indent();
+			bodyBuilder.appendFormalLine("esClient().admin().indices().prepareCreate(\"" + indexName + "\")");
+			bodyBuilder.appendFormalLine("        .setSettings(" + getSettingsMethodName() + "())");
+			bodyBuilder.appendFormalLine("        .addMapping(\"" + getTypeName() + "\", mapping)");
+			bodyBuilder.appendFormalLine("        .execute().actionGet();");
+			bodyBuilder.indentRemove();
+			bodyBuilder.appendFormalLine("} catch (RuntimeException e) {");
+			bodyBuilder.indent();
+			bodyBuilder.appendFormalLine("if (!(" + getSimpleName(new JavaType("org.elasticsearch.ExceptionsHelper")) + ".unwrapCause(e) instanceof " + getSimpleName(new JavaType("org.elasticsearch.indices.IndexAlreadyExistsException")) + ")) throw e;");
+			// The index may already exist without this type, when it is shared by the entities of an application
+			bodyBuilder.appendFormalLine("esClient().admin().indices().preparePutMapping(\"" + indexName + "\")");
+			bodyBuilder.appendFormalLine("        .setType(\"" + getTypeName() + "\")");
+			bodyBuilder.appendFormalLine("        .setSource(mapping)");
+			bodyBuilder.appendFormalLine("        .execute().actionGet();");
+			bodyBuilder.indentRemove();
+			bodyBuilder.appendFormalLine("}");
+		}
+
+		MethodMetadataBuilder methodBuilder = new MethodMetadataBuilder(getId(), Modifier.PUBLIC | Modifier.STATIC, methodName, JavaType.VOID_PRIMITIVE, bodyBuilder);
+		return methodBuilder.build();
+	}
+
+	private String getSourceValue(String getter, FieldMetadata field) {
+		JavaType type = field.getFieldType();
+		if (ElasticsearchUtils.isEnum(field)) {
+			return getter + ".name()";
+		} else if (type.equals(ElasticsearchUtils.CALENDAR)) {
+			return getter + ".getTime()";
+		} else if (type.equals(ElasticsearchUtils.BIG_DECIMAL)) {
+			return getter + ".doubleValue()";
+		} else if (type.equals(ElasticsearchUtils.BIG_INTEGER)) {
+			return getter + ".longValue()";
+		} else if (type.equals(JavaType.CHAR_OBJECT) || type.equals(JavaType.CHAR_PRIMITIVE)) {
+			return "String.valueOf(" + getter + ")";
+		}
+		return getter;
+	}
+
+	private MethodMetadata getIndexRequestMethod(MethodMetadata identifierAccessor, MethodMetadata versionAccessor) {
+		JavaSymbolName methodName = getIndexRequestMethodName();
+		List<AnnotatedJavaType> paramTypes = new ArrayList<AnnotatedJavaType>();
+		paramTypes.add(new AnnotatedJavaType(destination, new ArrayList<AnnotationMetadata>()));
+		MethodMetadata indexRequestMethod = MemberFindingUtils.getMethod(governorTypeDetails, methodName, AnnotatedJavaType.convertFromAnnotatedJavaTypes(paramTypes));
+		if (indexRequestMethod != null) return indexRequestMethod;
+
+		JavaType indexRequest = new JavaType("org.elasticsearch.action.index.IndexRequest");
+		String sIndexRequestId = getSimpleName(indexRequest);
+
+		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
+		
+		bodyBuilder.appendFormalLine(sIndexRequestId + " indexRequest = new " + sIndexRequestId + "(" + getWriteIndex(javaBeanFieldName, true) + ", \"" + getTypeName() + "\", \"\" + " + javaBeanFieldName + "." + identifierAccessor.getMethodName() + "());");
+		bodyBuilder.appendFormalLine("indexRequest.source(" + javaBeanFieldName + "." + getSourceMethodName() + "());");
+		if (routingAccessor != null) {
+			bodyBuilder.appendFormalLine("indexRequest.routing(" + getRouting(javaBeanFieldName + "." + routingAccessor.getMethodName() + "()") + ");");
+		}
+		if (versionAccessor != null) {
+			// The @Version value is the document version, so a stale write loses against a newer one whatever the order
+			String version = javaBeanFieldName + "." + versionAccessor.getMethodName() + "()";
+			String sVersionTypeId = getSimpleName(new JavaType("org.elasticsearch.index.VersionType"));
+			if (versionAccessor.getReturnType().isPrimitive()) {
+				bodyBuilder.appendFormalLine("indexRequest.version(" + version + ").versionType(" + sVersionTypeId + ".EXTERNAL);");
+			} else {
+				bodyBuilder.appendFormalLine("if (" + version + " != null) indexRequest.version(" + version + ".longValue()).versionType(" + sVersionTypeId + ".EXTERNAL);");
+			}
+		}
+		bodyBuilder.appendFormalLine("return indexRequest;");
+
+		List<JavaSymbolName> paramNames = new ArrayList<JavaSymbolName>();
+		paramNames.add(new JavaSymbolName(javaBeanFieldName));
+
+		MethodMetadataBuilder methodBuilder = new MethodMetadataBuilder(getId(), Modifier.PRIVATE | Modifier.STATIC, methodName, indexRequest, paramTypes, paramNames, bodyBuilder);
+		return methodBuilder.build();
+	}
+
 	private MethodMetadata getIndexEntityMethod() {
 		JavaSymbolName methodName = new JavaSymbolName(annotationValues.getIndexMethod() + destination.getSimpleTypeName());
 		List<AnnotatedJavaType> paramTypes = new ArrayList<AnnotatedJavaType>();
@@ -127,11 +556,7 @@ public class ElasticsearchMetadata extends AbstractItdTypeDetailsProvidingMetada
 		if (indexEntityMethod != null) return indexEntityMethod;
 
 		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
-		List<JavaType> typeParams = new ArrayList<JavaType>();
-		typeParams.add(destination);
-		bodyBuilder.appendFormalLine(getSimpleName(new JavaType(List.class.getName(), 0, DataType.TYPE, null, typeParams)) + " " + beanPlural.toLowerCase() + " = new " + getSimpleName(new JavaType(ArrayList.class.getName(), 0, DataType.TYPE, null, typeParams)) + "();");
-		bodyBuilder.appendFormalLine(beanPlural.toLowerCase() + ".add(" + javaBeanFieldName + ");");
-		bodyBuilder.appendFormalLine(annotationValues.getIndexMethod() + beanPlural + "(" + beanPlural.toLowerCase() + ");");
+		bodyBuilder.appendFormalLine("esBulkProcessor().add(" + getIndexRequestMethodName() + "(" + javaBeanFieldName + "));");
 
 		List<JavaSymbolName> paramNames = new ArrayList<JavaSymbolName>();
 		paramNames.add(new JavaSymbolName(javaBeanFieldName));
@@ -140,7 +565,7 @@ public class ElasticsearchMetadata extends AbstractItdTypeDetailsProvidingMetada
 		return methodBuilder.build();
 	}
 
-	private MethodMetadata getIndexEntitiesMethod(Map<MethodMetadata, FieldMetadata> accessorDetails, MethodMetadata identifierAccessor, FieldMetadata versionField) {
+	private MethodMetadata getIndexEntitiesMethod() {
 		JavaSymbolName methodName = new JavaSymbolName(annotationValues.getIndexMethod() + beanPlural);
 		List<JavaType> typeParams = new ArrayList<JavaType>();
 		typeParams.add(destination);
@@ -150,43 +575,171 @@ public class ElasticsearchMetadata extends AbstractItdTypeDetailsProvidingMetada
 		if (indexEntitiesMethod != null) return indexEntitiesMethod;
 
 		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
-		JavaType bulkBuilder = new JavaType("org.elasticsearch.client.action.bulk.BulkRequestBuilder");
-		JavaType indexBuilder = new JavaType("org.elasticsearch.client.action.index.IndexRequestBuilder");
-		JavaType esClient = new JavaType("org.elasticsearch.client.Client");
+		JavaType bulkRequest = new JavaType("org.elasticsearch.action.bulk.BulkRequest");
+		JavaType indexRequest = new JavaType("org.elasticsearch.action.index.IndexRequest");
+		JavaType bulkProcessor = getRuntimeType(ElasticsearchOperations.ES_BULK_PROCESSOR_SIMPLE_TYPE);
+		List<JavaType> bulkResultParams = new ArrayList<JavaType>();
+		bulkResultParams.add(getRuntimeType(ElasticsearchOperations.ES_BULK_RESULT_SIMPLE_TYPE));
+		List<JavaType> futureParams = new ArrayList<JavaType>();
+		futureParams.add(new JavaType("org.elasticsearch.action.ActionFuture", 0, DataType.TYPE, null, bulkResultParams));
+		JavaType futureList = new JavaType(List.class.getName(), 0, DataType.TYPE, null, futureParams);
 		
-		String sBulkId = getSimpleName(bulkBuilder);
-		String sIndexId = getSimpleName(indexBuilder);
-		String sClientId = getSimpleName(esClient);
+		String sBulkRequestId = getSimpleName(bulkRequest);
 		
-		bodyBuilder.appendFormalLine(sClientId + " client = esClient();");
-		bodyBuilder.appendFormalLine(sBulkId + " bulkBuilder = new " + sBulkId + "(client);");
+		// Chunks are handed to the shared bulk processor, which bounds the number of bulk requests in flight
+		bodyBuilder.appendFormalLine(getSimpleName(futureList) + " responses = new " + getSimpleName(new JavaType(ArrayList.class.getName(), 0, DataType.TYPE, null, futureParams)) + "();");
+		bodyBuilder.appendFormalLine(getSimpleName(bulkProcessor) + " bulkProcessor = esBulkProcessor();");
+		bodyBuilder.appendFormalLine(sBulkRequestId + " bulkRequest = new " + sBulkRequestId + "();");
+		bodyBuilder.appendFormalLine("long bulkBytes = 0;");
 		
 		bodyBuilder.appendFormalLine("for (" + destination.getSimpleTypeName() + " " + javaBeanFieldName + " : " + beanPlural.toLowerCase() + ") {");
 		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine(getSimpleName(indexRequest) + " indexRequest = " + getIndexRequestMethodName() + "(" + javaBeanFieldName + ");");
+		bodyBuilder.appendFormalLine("int sourceLength = indexRequest.underlyingSourceLength();");
+		bodyBuilder.appendFormalLine("if (bulkRequest.numberOfActions() >= " + annotationValues.getBulkMaxActions() + " || (bulkRequest.numberOfActions() > 0 && bulkBytes + sourceLength > " + annotationValues.getBulkMaxBytes() + ")) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("responses.add(bulkProcessor.submit(bulkRequest));");
+		bodyBuilder.appendFormalLine("bulkRequest = new " + sBulkRequestId + "();");
+		bodyBuilder.appendFormalLine("bulkBytes = 0;");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.appendFormalLine("bulkRequest.add(indexRequest);");
+		bodyBuilder.appendFormalLine("bulkBytes += sourceLength;");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.appendFormalLine("if (bulkRequest.numberOfActions() > 0) responses.add(bulkProcessor.submit(bulkRequest));");
+		bodyBuilder.appendFormalLine("return responses;");
+
+		List<JavaSymbolName> paramNames = new ArrayList<JavaSymbolName>();
+		paramNames.add(new JavaSymbolName(beanPlural.toLowerCase()));
+		MethodMetadataBuilder methodBuilder = new MethodMetadataBuilder(getId(), Modifier.PUBLIC | Modifier.STATIC, methodName, futureList, paramTypes, paramNames, bodyBuilder);
+		return methodBuilder.build();
+	}
+
+	private MethodMetadata getReindexAllMethod(FieldMetadata identifierField, MethodMetadata identifierAccessor) {
+		JavaSymbolName methodName = new JavaSymbolName(annotationValues.getReindexMethod() + beanPlural);
+		MethodMetadata reindexMethod = MemberFindingUtils.getMethod(governorTypeDetails, methodName, new ArrayList<JavaType>());
+		if (reindexMethod != null) return reindexMethod;
+
+		JavaType log = new JavaType("org.apache.commons.logging.Log");
+		JavaType logFactory = new JavaType("org.apache.commons.logging.LogFactory");
+		JavaType entityManager = new JavaType("javax.persistence.EntityManager");
+		List<JavaType> entityParams = new ArrayList<JavaType>();
+		entityParams.add(destination);
+		JavaType typedQuery = new JavaType("javax.persistence.TypedQuery", 0, DataType.TYPE, null, entityParams);
+		JavaType entityList = new JavaType(List.class.getName(), 0, DataType.TYPE, null, entityParams);
+		JavaType bulkResult = getRuntimeType(ElasticsearchOperations.ES_BULK_RESULT_SIMPLE_TYPE);
+		List<JavaType> bulkResultParams = new ArrayList<JavaType>();
+		bulkResultParams.add(bulkResult);
+		JavaType actionFuture = new JavaType("org.elasticsearch.action.ActionFuture", 0, DataType.TYPE, null, bulkResultParams);
+		List<JavaType> futureParams = new ArrayList<JavaType>();
+		futureParams.add(actionFuture);
+		JavaType futureList = new JavaType(List.class.getName(), 0, DataType.TYPE, null, futureParams);
+		JavaType futureIterator = new JavaType("java.util.Iterator", 0, DataType.TYPE, null, futureParams);
 		
-		// TODO: handle per-type vs per-app indices
-		bodyBuilder.appendFormalLine(sIndexId + " indexBuilder = new " + sIndexId + "(client,\"" + destination.getSimpleTypeName().toLowerCase() + "\");");
+		String sEntityId = getSimpleName(destination);
+		String idField = identifierField.getFieldName().getSymbolName();
+		String entityQuery = "SELECT o FROM " + destination.getSimpleTypeName() + " o";
 		
-		bodyBuilder.appendFormalLine("indexBuilder.setType(\"" + destination.getSimpleTypeName().toLowerCase() + "\");");
-		bodyBuilder.appendFormalLine("indexBuilder.setId(\"\" + " + javaBeanFieldName + "." + identifierAccessor.getMethodName() + "());");
-		bodyBuilder.appendFormalLine("indexBuilder.setSource(" + javaBeanFieldName + ".toJson());");
-		bodyBuilder.appendFormalLine("bulkBuilder.add(indexBuilder);");
+		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
+		bodyBuilder.appendFormalLine(getSimpleName(log) + " log = " + getSimpleName(logFactory) + ".getLog(" + sEntityId + ".class);");
+		bodyBuilder.appendFormalLine(getSimpleName(entityManager) + " em = entityManager();");
+		bodyBuilder.appendFormalLine("long total = em.createQuery(\"SELECT COUNT(o) FROM " + destination.getSimpleTypeName() + " o\", Long.class).getSingleResult();");
+		bodyBuilder.appendFormalLine(getSimpleName(futureList) + " outstanding = new " + getSimpleName(new JavaType("java.util.LinkedList", 0, DataType.TYPE, null, futureParams)) + "();");
+		bodyBuilder.appendFormalLine("long read = 0, indexed = 0, skipped = 0, failed = 0;");
+		bodyBuilder.appendFormalLine("long start = System.currentTimeMillis(), lastReport = start;");
+		bodyBuilder.appendFormalLine(getSimpleName(ElasticsearchUtils.getBoxedType(identifierField.getFieldType())) + " lastId = null;");
+		if (annotationValues.isBulkLoadReindex()) {
+			// No refresh and no replicas while loading, restored even if the reindex fails
+			String sBulkLoadId = getSimpleName(getRuntimeType(ElasticsearchOperations.ES_BULK_LOAD_SIMPLE_TYPE));
+			bodyBuilder.appendFormalLine(sBulkLoadId + " bulkLoad = " + sBulkLoadId + ".begin(esClient(), \"" + indexName + "\");");
+			bodyBuilder.appendFormalLine("try {");
+			bodyBuilder.indent();
+		}
+		bodyBuilder.appendFormalLine("while (true) {");
+		bodyBuilder.indent();
+		// Keyset paging keeps every page query cheap, unlike growing offsets
+		bodyBuilder.appendFormalLine(getSimpleName(typedQuery) + " query = lastId == null");
+		bodyBuilder.appendFormalLine("        ? em.createQuery(\"" + entityQuery + " ORDER BY o." + idField + "\", " + sEntityId + ".class)");
+		bodyBuilder.appendFormalLine("        : em.createQuery(\"" + entityQuery + " WHERE o." + idField + " > :lastId ORDER BY o." + idField + "\", " + sEntityId + ".class).setParameter(\"lastId\", lastId);");
+		bodyBuilder.appendFormalLine(getSimpleName(entityList) + " page = query.setMaxResults(" + annotationValues.getReindexPageSize() + ").getResultList();");
+		bodyBuilder.appendFormalLine("if (page.isEmpty()) break;");
+		bodyBuilder.appendFormalLine("lastId = page.get(page.size() - 1)." + identifierAccessor.getMethodName() + "();");
+		bodyBuilder.appendFormalLine("outstanding.addAll(" + annotationValues.getIndexMethod() + beanPlural + "(page));");
+		bodyBuilder.appendFormalLine("read += page.size();");
+		bodyBuilder.appendFormalLine("em.clear();");
+		bodyBuilder.appendFormalLine("for (" + getSimpleName(futureIterator) + " it = outstanding.iterator(); it.hasNext();) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine(getSimpleName(actionFuture) + " future = it.next();");
+		bodyBuilder.appendFormalLine("if (!future.isDone()) continue;");
+		appendCountBulkResult(bodyBuilder);
+		bodyBuilder.appendFormalLine("it.remove();");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.appendFormalLine("long now = System.currentTimeMillis();");
+		bodyBuilder.appendFormalLine("if (now - lastReport >= 10000) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("log.info(\"Reindexing " + beanPlural + ": read \" + read + \" of \" + total + \", indexed \" + indexed + \", skipped \" + skipped + \", failed \" + failed + \" (\" + (read * 1000 / Math.max(1, now - start)) + \" docs/s)\");");
+		bodyBuilder.appendFormalLine("lastReport = now;");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.appendFormalLine("for (" + getSimpleName(actionFuture) + " future : outstanding) {");
+		bodyBuilder.indent();
+		appendCountBulkResult(bodyBuilder);
 		bodyBuilder.indentRemove();
 		bodyBuilder.appendFormalLine("}");
+		if (annotationValues.isBulkLoadReindex()) {
+			bodyBuilder.appendFormalLine("bulkLoad.end();");
+			if (annotationValues.isOptimizeAfterReindex()) {
+				bodyBuilder.appendFormalLine("bulkLoad.optimize(1);");
+			}
+		} else if (annotationValues.isOptimizeAfterReindex()) {
+			bodyBuilder.appendFormalLine("esClient().admin().indices().prepareOptimize(\"" + indexName + "\").setMaxNumSegments(1).execute().actionGet();");
+		}
+		bodyBuilder.appendFormalLine("long took = Math.max(1, System.currentTimeMillis() - start);");
+		bodyBuilder.appendFormalLine("log.info(\"Reindexed " + beanPlural + ": read \" + read + \", indexed \" + indexed + \", skipped \" + skipped + \", failed \" + failed + \" in \" + took + \" ms (\" + (read * 1000 / took) + \" docs/s)\");");
+		bodyBuilder.appendFormalLine("return indexed;");
+		if (annotationValues.isBulkLoadReindex()) {
+			bodyBuilder.indentRemove();
+			bodyBuilder.appendFormalLine("} finally {");
+			bodyBuilder.indent();
+			bodyBuilder.appendFormalLine("bulkLoad.end();");
+			bodyBuilder.indentRemove();
+			bodyBuilder.appendFormalLine("}");
+		}
+
+		MethodMetadataBuilder methodBuilder = new MethodMetadataBuilder(getId(), Modifier.PUBLIC | Modifier.STATIC, methodName, JavaType.LONG_PRIMITIVE, bodyBuilder);
+		return methodBuilder.build();
+	}
+
+	private void appendCountBulkResult(InvocableMemberBodyBuilder bodyBuilder) {
+		// Final counts once all retries have settled, a version conflict means a newer version is already indexed
+		bodyBuilder.appendFormalLine(getSimpleName(getRuntimeType(ElasticsearchOperations.ES_BULK_RESULT_SIMPLE_TYPE)) + " result = future.actionGet();");
+		bodyBuilder.appendFormalLine("indexed += result.getSucceeded();");
+		bodyBuilder.appendFormalLine("skipped += result.getVersionConflicts();");
+		bodyBuilder.appendFormalLine("failed += result.getDeadLettered();");
+	}
+
+	private MethodMetadata getReplayDeadLettersMethod() {
+		JavaSymbolName methodName = new JavaSymbolName("replay" + beanPlural + "DeadLetters");
+		MethodMetadata replayMethod = MemberFindingUtils.getMethod(governorTypeDetails, methodName, new ArrayList<JavaType>());
+		if (replayMethod != null) return replayMethod;
+
+		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
 		bodyBuilder.appendFormalLine("try {");
 		bodyBuilder.indent();
-		bodyBuilder.appendFormalLine("bulkBuilder.execute();");
+		
+		bodyBuilder.appendFormalLine("return esBulkProcessor().replayDeadLetters(" + (isTimeBased() ? "null" : "\"" + getIndexName() + "\"") + ", \"" + getTypeName() + "\");");
 		bodyBuilder.indentRemove();
-		bodyBuilder.appendFormalLine("} catch (Exception e) {");
+		bodyBuilder.appendFormalLine("} catch (" + getSimpleName(new JavaType("java.io.IOException")) + " e) {");
 		bodyBuilder.indent();
-		bodyBuilder.appendFormalLine("e.printStackTrace();");
+		bodyBuilder.appendFormalLine("throw new IllegalStateException(\"Unable to replay dead letters for " + destination.getSimpleTypeName() + "\", e);");
 		bodyBuilder.indentRemove();
 		bodyBuilder.appendFormalLine("}");
 
-		List<JavaSymbolName> paramNames = new ArrayList<JavaSymbolName>();
-		paramNames.add(new JavaSymbolName(beanPlural.toLowerCase()));
-		MethodMetadataBuilder methodBuilder = new MethodMetadataBuilder(getId(), Modifier.PUBLIC | Modifier.STATIC, methodName, JavaType.VOID_PRIMITIVE, paramTypes, paramNames, bodyBuilder);
-		methodBuilder.addAnnotation(new AnnotationMetadataBuilder(new JavaType("org.springframework.scheduling.annotation.Async")));
+		MethodMetadataBuilder methodBuilder = new MethodMetadataBuilder(getId(), Modifier.PUBLIC | Modifier.STATIC, methodName, JavaType.INT_PRIMITIVE, bodyBuilder);
 		return methodBuilder.build();
 	}
 
@@ -197,39 +750,120 @@ public class ElasticsearchMetadata extends AbstractItdTypeDetailsProvidingMetada
 		MethodMetadata deleteIndex = MemberFindingUtils.getMethod(governorTypeDetails, methodName, AnnotatedJavaType.convertFromAnnotatedJavaTypes(paramTypes));
 		if (deleteIndex != null) return deleteIndex;
 
-		JavaType deleteBuilder = new JavaType("org.elasticsearch.client.action.delete.DeleteRequestBuilder");
-		JavaType esClient = new JavaType("org.elasticsearch.client.Client");
-		
-		String sDeleteId = getSimpleName(deleteBuilder);
-		String sClientId = getSimpleName(esClient);
+		JavaType deleteRequest = new JavaType("org.elasticsearch.action.delete.DeleteRequest");
+		String sDeleteRequestId = getSimpleName(deleteRequest);
 		
 		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
-		bodyBuilder.appendFormalLine(sClientId + " client = esClient();");
 		
-		// TODO: handle per-app vs per-type indices
-		bodyBuilder.appendFormalLine(sDeleteId + " deleteBuilder = new " + sDeleteId + "(client,\"" + destination.getSimpleTypeName().toLowerCase() + "\");");
-		bodyBuilder.appendFormalLine("deleteBuilder.setType(\"" + destination.getSimpleTypeName().toLowerCase() + "\");");
-		bodyBuilder.appendFormalLine("deleteBuilder.setId(\"\" + " + javaBeanFieldName + "." + identifierAccessor.getMethodName() + "());");
+		if (isTimeBased()) {
+			// The bucket of the document cannot be told from the entity, its timestamp may have changed or be null
+			bodyBuilder.appendFormalLine("esBulkProcessor().deleteByQuery(\"" + getIndexName() + "\", \"" + getTypeName() + "\", " + getSimpleName(new JavaType("org.elasticsearch.index.query.QueryBuilders")) + ".termQuery(\"_uid\", " + getUid(javaBeanFieldName, identifierAccessor) + "), 1);");
+		} else {
+			bodyBuilder.appendFormalLine("esBulkProcessor().add(new " + sDeleteRequestId + "(" + getWriteIndex(javaBeanFieldName, false) + ", \"" + getTypeName() + "\", \"\" + " + javaBeanFieldName + "." + identifierAccessor.getMethodName() + "())" + getDeleteRouting() + ");");
+		}
+
+		List<JavaSymbolName> paramNames = new ArrayList<JavaSymbolName>();
+		paramNames.add(new JavaSymbolName(javaBeanFieldName));
+
+		MethodMetadataBuilder methodBuilder = new MethodMetadataBuilder(getId(), Modifier.PUBLIC | Modifier.STATIC, methodName, JavaType.VOID_PRIMITIVE, paramTypes, paramNames, bodyBuilder);
+		return methodBuilder.build();
+	}
+
+	private MethodMetadata getDeleteIndexEntitiesMethod(MethodMetadata identifierAccessor) {
+		JavaSymbolName methodName = new JavaSymbolName(annotationValues.getDeleteIndexMethod());
+		List<JavaType> typeParams = new ArrayList<JavaType>();
+		typeParams.add(destination);
+		List<AnnotatedJavaType> paramTypes = new ArrayList<AnnotatedJavaType>();
+		paramTypes.add(new AnnotatedJavaType(new JavaType("java.util.Collection", 0, DataType.TYPE, null, typeParams), new ArrayList<AnnotationMetadata>()));
+		MethodMetadata deleteIndexEntities = MemberFindingUtils.getMethod(governorTypeDetails, methodName, AnnotatedJavaType.convertFromAnnotatedJavaTypes(paramTypes));
+		if (deleteIndexEntities != null) return deleteIndexEntities;
+
+		JavaType bulkRequest = new JavaType("org.elasticsearch.action.bulk.BulkRequest");
+		JavaType deleteRequest = new JavaType("org.elasticsearch.action.delete.DeleteRequest");
+		JavaType bulkProcessor = getRuntimeType(ElasticsearchOperations.ES_BULK_PROCESSOR_SIMPLE_TYPE);
+		List<JavaType> bulkResultParams = new ArrayList<JavaType>();
+		bulkResultParams.add(getRuntimeType(ElasticsearchOperations.ES_BULK_RESULT_SIMPLE_TYPE));
+		List<JavaType> futureParams = new ArrayList<JavaType>();
+		futureParams.add(new JavaType("org.elasticsearch.action.ActionFuture", 0, DataType.TYPE, null, bulkResultParams));
+		JavaType futureList = new JavaType(List.class.getName(), 0, DataType.TYPE, null, futureParams);
 		
-		bodyBuilder.appendFormalLine("try {");
+		String sBulkRequestId = getSimpleName(bulkRequest);
+		
+		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
+		bodyBuilder.appendFormalLine(getSimpleName(futureList) + " responses = new " + getSimpleName(new JavaType(ArrayList.class.getName(), 0, DataType.TYPE, null, futureParams)) + "();");
+		bodyBuilder.appendFormalLine(getSimpleName(bulkProcessor) + " bulkProcessor = esBulkProcessor();");
+		if (isTimeBased()) {
+			// One delete by query on the alias per chunk, the buckets of the documents are not known
+			List<JavaType> stringParams = new ArrayList<JavaType>();
+			stringParams.add(JavaType.STRING_OBJECT);
+			String deleteChunk = "responses.add(bulkProcessor.deleteByQuery(\"" + getIndexName() + "\", \"" + getTypeName() + "\", " + getSimpleName(new JavaType("org.elasticsearch.index.query.QueryBuilders")) + ".termsQuery(\"_uid\", uids.toArray(new String[uids.size()])), uids.size()));";
+			bodyBuilder.appendFormalLine(getSimpleName(new JavaType(List.class.getName(), 0, DataType.TYPE, null, stringParams)) + " uids = new " + getSimpleName(new JavaType(ArrayList.class.getName(), 0, DataType.TYPE, null, stringParams)) + "();");
+			bodyBuilder.appendFormalLine("for (" + destination.getSimpleTypeName() + " " + javaBeanFieldName + " : " + beanPlural.toLowerCase() + ") {");
+			bodyBuilder.indent();
+			bodyBuilder.appendFormalLine("if (uids.size() >= " + annotationValues.getBulkMaxActions() + ") {");
+			bodyBuilder.indent();
+			bodyBuilder.appendFormalLine(deleteChunk);
+			bodyBuilder.appendFormalLine("uids.clear();");
+			bodyBuilder.indentRemove();
+			bodyBuilder.appendFormalLine("}");
+			bodyBuilder.appendFormalLine("uids.add(" + getUid(javaBeanFieldName, identifierAccessor) + ");");
+			bodyBuilder.indentRemove();
+			bodyBuilder.appendFormalLine("}");
+			bodyBuilder.appendFormalLine("if (!uids.isEmpty()) " + deleteChunk);
+			bodyBuilder.appendFormalLine("return responses;");
+			
+			List<JavaSymbolName> paramNames = new ArrayList<JavaSymbolName>();
+			paramNames.add(new JavaSymbolName(beanPlural.toLowerCase()));
+			return new MethodMetadataBuilder(getId(), Modifier.PUBLIC | Modifier.STATIC, methodName, futureList, paramTypes, paramNames, bodyBuilder).build();
+		}
+		bodyBuilder.appendFormalLine(sBulkRequestId + " bulkRequest = new " + sBulkRequestId + "();");
+		bodyBuilder.appendFormalLine("for (" + destination.getSimpleTypeName() + " " + javaBeanFieldName + " : " + beanPlural.toLowerCase() + ") {");
 		bodyBuilder.indent();
-		bodyBuilder.appendFormalLine("deleteBuilder.execute();");
-		bodyBuilder.indentRemove();
-		bodyBuilder.appendFormalLine("} catch (Exception e) {");
+		bodyBuilder.appendFormalLine("if (bulkRequest.numberOfActions() >= " + annotationValues.getBulkMaxActions() + ") {");
 		bodyBuilder.indent();
-		bodyBuilder.appendFormalLine("e.printStackTrace();");
+		bodyBuilder.appendFormalLine("responses.add(bulkProcessor.submit(bulkRequest));");
+		bodyBuilder.appendFormalLine("bulkRequest = new " + sBulkRequestId + "();");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.appendFormalLine("bulkRequest.add(new " + getSimpleName(deleteRequest) + "(" + getWriteIndex(javaBeanFieldName, false) + ", \"" + getTypeName() + "\", \"\" + " + javaBeanFieldName + "." + identifierAccessor.getMethodName() + "())" + getDeleteRouting() + ");");
 		bodyBuilder.indentRemove();
 		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.appendFormalLine("if (bulkRequest.numberOfActions() > 0) responses.add(bulkProcessor.submit(bulkRequest));");
+		bodyBuilder.appendFormalLine("return responses;");
 
 		List<JavaSymbolName> paramNames = new ArrayList<JavaSymbolName>();
-		paramNames.add(new JavaSymbolName(javaBeanFieldName));
+		paramNames.add(new JavaSymbolName(beanPlural.toLowerCase()));
+		MethodMetadataBuilder methodBuilder = new MethodMetadataBuilder(getId(), Modifier.PUBLIC | Modifier.STATIC, methodName, futureList, paramTypes, paramNames, bodyBuilder);
+		return methodBuilder.build();
+	}
 
-		MethodMetadataBuilder methodBuilder = new MethodMetadataBuilder(getId(), Modifier.PUBLIC | Modifier.STATIC, methodName, JavaType.VOID_PRIMITIVE, paramTypes, paramNames, bodyBuilder);
-		methodBuilder.addAnnotation(new AnnotationMetadataBuilder(new JavaType("org.springframework.scheduling.annotation.Async")));
+	private MethodMetadata getDeleteIndexByQueryMethod() {
+		JavaSymbolName methodName = new JavaSymbolName(annotationValues.getDeleteIndexMethod() + "ByQuery");
+		List<JavaType> paramTypes = new ArrayList<JavaType>();
+		paramTypes.add(new JavaType("org.elasticsearch.index.query.QueryBuilder"));
+		MethodMetadata deleteByQuery = MemberFindingUtils.getMethod(governorTypeDetails, methodName, paramTypes);
+		if (deleteByQuery != null) return deleteByQuery;
+
+		List<JavaType> typeParams = new ArrayList<JavaType>();
+		typeParams.add(new JavaType("org.elasticsearch.action.deletebyquery.DeleteByQueryResponse"));
+		JavaType listenFuture = new JavaType("org.elasticsearch.action.ListenableActionFuture", 0, DataType.TYPE, null, typeParams);
+
+		// One server side operation, use QueryBuilders.matchAllQuery() to wipe the whole type
+		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
+		bodyBuilder.appendFormalLine(getSimpleName(listenFuture) + " future = esClient().prepareDeleteByQuery(\"" + getIndexName() + "\")");
+		bodyBuilder.appendFormalLine("        .setTypes(\"" + getTypeName() + "\")");
+		bodyBuilder.appendFormalLine("        .setQuery(queryBuilder)");
+		bodyBuilder.appendFormalLine("        .execute();");
+		bodyBuilder.appendFormalLine(getSimpleName(getRuntimeType(ElasticsearchOperations.ES_WRITE_GENERATIONS_SIMPLE_TYPE)) + ".advanceAfter(\"" + getTypeName() + "\", future);");
+		bodyBuilder.appendFormalLine("return future;");
+
+		List<JavaSymbolName> paramNames = new ArrayList<JavaSymbolName>();
+		paramNames.add(new JavaSymbolName("queryBuilder"));
+		MethodMetadataBuilder methodBuilder = new MethodMetadataBuilder(getId(), Modifier.PUBLIC | Modifier.STATIC, methodName, listenFuture, AnnotatedJavaType.convertFromJavaTypes(paramTypes), paramNames, bodyBuilder);
 		return methodBuilder.build();
 	}
 
-	private MethodMetadata getPreRemoveMethod() {
+	private MethodMetadata getPreRemoveMethod(MethodMetadata identifierAccessor) {
 		JavaSymbolName methodName = new JavaSymbolName(annotationValues.getPreRemoveMethod());
 		MethodMetadata preDelete = MemberFindingUtils.getMethod(governorTypeDetails, methodName, new ArrayList<JavaType>());
 		if (preDelete != null) return preDelete;
@@ -237,8 +871,19 @@ public class ElasticsearchMetadata extends AbstractItdTypeDetailsProvidingMetada
 		List<AnnotationMetadataBuilder> annotations = new ArrayList<AnnotationMetadataBuilder>();
 		// annotations.add(new AnnotationMetadataBuilder(new JavaType("org.springframework.scheduling.annotation.Async")));
 		annotations.add(new AnnotationMetadataBuilder(new JavaType("javax.persistence.PreRemove")));
+		// Deleted once the transaction has committed, which also drops any index request still waiting for it
+		String sIndexerId = getSimpleName(getRuntimeType(ElasticsearchOperations.ES_TRANSACTION_INDEXER_SIMPLE_TYPE));
+		String sEntityId = getSimpleName(destination);
 		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
+		bodyBuilder.appendFormalLine("if (" + sIndexerId + ".isActive()) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine(sIndexerId + ".registerDelete(" + sEntityId + ".class, " + identifierAccessor.getMethodName() + "(), this, new " + sIndexerId + ".Callback<" + sEntityId + ">() {");
+		appendTransactionCallback(bodyBuilder);
+		bodyBuilder.appendFormalLine("} else {");
+		bodyBuilder.indent();
 		bodyBuilder.appendFormalLine(annotationValues.getDeleteIndexMethod() + "(this);");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
 
 		MethodMetadataBuilder methodBuilder = new MethodMetadataBuilder(getId(), Modifier.PRIVATE, methodName, JavaType.VOID_PRIMITIVE, bodyBuilder);
 		methodBuilder.setAnnotations(annotations);
@@ -299,26 +944,702 @@ public class ElasticsearchMetadata extends AbstractItdTypeDetailsProvidingMetada
 		bodyBuilder.appendFormalLine(getSimpleName(esClient) + " client = esClient();");
 		bodyBuilder.appendFormalLine(sSearchId + " searchBuilder = new " + sSearchId + "(client);");
 		bodyBuilder.appendFormalLine("searchBuilder.setQuery(queryBuilder);");
-		bodyBuilder.appendFormalLine("searchBuilder.setTypes(\"" + destination.getSimpleTypeName().toLowerCase() + "\");");
+		bodyBuilder.appendFormalLine("searchBuilder.setTypes(\"" + getTypeName() + "\");");
 		
-		// TODO: handle per-app vs per-type indices
-		bodyBuilder.appendFormalLine("searchBuilder.setIndices(\"" + destination.getSimpleTypeName().toLowerCase() + "\");");
+		bodyBuilder.appendFormalLine("searchBuilder.setIndices(\"" + getIndexName() + "\");");
 
-		bodyBuilder.appendFormalLine("try {");
+		// Failures propagate, the typed search, count and exists methods build on this one
+		bodyBuilder.appendFormalLine("return " + getExecuteSearch("queryBuilder", "-1", "-1") + ";");
+		
+		MethodMetadataBuilder methodBuilder = new MethodMetadataBuilder(getId(), Modifier.PUBLIC | Modifier.STATIC, methodName, listenFuture, AnnotatedJavaType.convertFromJavaTypes(paramTypes), paramNames, bodyBuilder);
+		return methodBuilder.build();
+	}
+
+	private MethodMetadata getSearchEntitiesMethod() {
+		JavaSymbolName methodName = new JavaSymbolName(annotationValues.getSearchMethod() + beanPlural);
+		List<JavaType> paramTypes = new ArrayList<JavaType>();
+		paramTypes.add(new JavaType("org.elasticsearch.index.query.QueryBuilder"));
+		paramTypes.add(JavaType.INT_PRIMITIVE);
+		paramTypes.add(JavaType.INT_PRIMITIVE);
+		MethodMetadata searchEntities = MemberFindingUtils.getMethod(governorTypeDetails, methodName, paramTypes);
+		if (searchEntities != null) return searchEntities;
+
+		List<JavaType> typeParams = new ArrayList<JavaType>();
+		typeParams.add(destination);
+		JavaType entityList = new JavaType(List.class.getName(), 0, DataType.TYPE, null, typeParams);
+		JavaType searchResponse = new JavaType("org.elasticsearch.action.search.SearchResponse");
+
+		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
+		JavaType searchBuilder = new JavaType("org.elasticsearch.client.action.search.SearchRequestBuilder");
+		bodyBuilder.appendFormalLine(getSimpleName(searchBuilder) + " searchBuilder = esClient().prepareSearch(\"" + getIndexName() + "\")");
+		bodyBuilder.appendFormalLine("        .setTypes(\"" + getTypeName() + "\")");
+		bodyBuilder.appendFormalLine("        .setQuery(queryBuilder)");
+		bodyBuilder.appendFormalLine("        .setFrom(firstResult)");
+		bodyBuilder.appendFormalLine("        .setSize(maxResults);");
+		bodyBuilder.appendFormalLine(getSimpleName(searchResponse) + " response = " + getExecuteSearch("queryBuilder", "firstResult", "maxResults") + ".actionGet();");
+		bodyBuilder.appendFormalLine("return " + getFindEntitiesForHitsMethodName() + "(response.getHits());");
+
+		List<JavaSymbolName> paramNames = new ArrayList<JavaSymbolName>();
+		paramNames.add(new JavaSymbolName("queryBuilder"));
+		paramNames.add(new JavaSymbolName("firstResult"));
+		paramNames.add(new JavaSymbolName("maxResults"));
+		MethodMetadataBuilder methodBuilder = new MethodMetadataBuilder(getId(), Modifier.PUBLIC | Modifier.STATIC, methodName, entityList, AnnotatedJavaType.convertFromJavaTypes(paramTypes), paramNames, bodyBuilder);
+		return methodBuilder.build();
+	}
+
+	private MethodMetadata getFindEntitiesForHitsMethod(FieldMetadata identifierField, MethodMetadata identifierAccessor) {
+		JavaSymbolName methodName = getFindEntitiesForHitsMethodName();
+		List<JavaType> paramTypes = new ArrayList<JavaType>();
+		paramTypes.add(new JavaType("org.elasticsearch.search.SearchHits"));
+		MethodMetadata findEntities = MemberFindingUtils.getMethod(governorTypeDetails, methodName, paramTypes);
+		if (findEntities != null) return findEntities;
+
+		JavaType idType = ElasticsearchUtils.getBoxedType(identifierField.getFieldType());
+		List<JavaType> typeParams = new ArrayList<JavaType>();
+		typeParams.add(destination);
+		JavaType entityList = new JavaType(List.class.getName(), 0, DataType.TYPE, null, typeParams);
+		List<JavaType> idParams = new ArrayList<JavaType>();
+		idParams.add(idType);
+		List<JavaType> mapParams = new ArrayList<JavaType>();
+		mapParams.add(idType);
+		mapParams.add(destination);
+		JavaType idList = new JavaType(List.class.getName(), 0, DataType.TYPE, null, idParams);
+		JavaType entityMap = new JavaType(Map.class.getName(), 0, DataType.TYPE, null, mapParams);
+		String sEntityId = getSimpleName(destination);
+		String sIdTypeId = getSimpleName(idType);
+		String entities = beanPlural.toLowerCase();
+
+		// One IN query for the whole page of hits instead of a find per hit
+		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
+		bodyBuilder.appendFormalLine(getSimpleName(idList) + " ids = new " + getSimpleName(new JavaType(ArrayList.class.getName(), 0, DataType.TYPE, null, idParams)) + "(hits.getHits().length);");
+		bodyBuilder.appendFormalLine("for (" + getSimpleName(new JavaType("org.elasticsearch.search.SearchHit")) + " hit : hits.getHits()) {");
 		bodyBuilder.indent();
-		bodyBuilder.appendFormalLine("return searchBuilder.execute();");
+		bodyBuilder.appendFormalLine("ids.add(" + getIdFromString(idType, "hit.getId()") + ");");
 		bodyBuilder.indentRemove();
-		bodyBuilder.appendFormalLine("} catch (Exception e) {");
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.appendFormalLine(getSimpleName(entityList) + " " + entities + " = new " + getSimpleName(new JavaType(ArrayList.class.getName(), 0, DataType.TYPE, null, typeParams)) + "(ids.size());");
+		bodyBuilder.appendFormalLine("if (ids.isEmpty()) return " + entities + ";");
+		bodyBuilder.appendFormalLine(getSimpleName(entityMap) + " byId = new " + getSimpleName(new JavaType("java.util.HashMap", 0, DataType.TYPE, null, mapParams)) + "();");
+		bodyBuilder.appendFormalLine("for (" + sEntityId + " " + javaBeanFieldName + " : entityManager().createQuery(\"SELECT o FROM " + destination.getSimpleTypeName() + " o WHERE o." + identifierField.getFieldName().getSymbolName() + " IN (:ids)\", " + sEntityId + ".class).setParameter(\"ids\", ids).getResultList()) {");
 		bodyBuilder.indent();
-		bodyBuilder.appendFormalLine("e.printStackTrace();");
+		bodyBuilder.appendFormalLine("byId.put(" + javaBeanFieldName + "." + identifierAccessor.getMethodName() + "(), " + javaBeanFieldName + ");");
 		bodyBuilder.indentRemove();
 		bodyBuilder.appendFormalLine("}");
-		bodyBuilder.appendFormalLine("return null;");
-		
+		// Hits come back in score order, keep it
+		bodyBuilder.appendFormalLine("for (" + sIdTypeId + " id : ids) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine(sEntityId + " " + javaBeanFieldName + " = byId.get(id);");
+		if (annotationValues.isSkipMissingEntities()) {
+			bodyBuilder.appendFormalLine("if (" + javaBeanFieldName + " != null) " + entities + ".add(" + javaBeanFieldName + ");");
+		} else {
+			bodyBuilder.appendFormalLine(entities + ".add(" + javaBeanFieldName + ");");
+		}
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.appendFormalLine("return " + entities + ";");
+
+		List<JavaSymbolName> paramNames = new ArrayList<JavaSymbolName>();
+		paramNames.add(new JavaSymbolName("hits"));
+		MethodMetadataBuilder methodBuilder = new MethodMetadataBuilder(getId(), Modifier.PUBLIC | Modifier.STATIC, methodName, entityList, AnnotatedJavaType.convertFromJavaTypes(paramTypes), paramNames, bodyBuilder);
+		return methodBuilder.build();
+	}
+
+	private MethodMetadata getFromSourceMethod(FieldMetadata identifierField, FieldMetadata versionField) {
+		JavaSymbolName methodName = getFromSourceMethodName();
+		List<JavaType> mapParams = new ArrayList<JavaType>();
+		mapParams.add(JavaType.STRING_OBJECT);
+		mapParams.add(new JavaType("java.lang.Object"));
+		List<JavaType> paramTypes = new ArrayList<JavaType>();
+		paramTypes.add(new JavaType(Map.class.getName(), 0, DataType.TYPE, null, mapParams));
+		MethodMetadata fromSource = MemberFindingUtils.getMethod(governorTypeDetails, methodName, paramTypes);
+		if (fromSource != null) return fromSource;
+
+		String sEntityId = getSimpleName(destination);
+
+		// Counterpart of toElasticsearchSource(), values come back as parsed from the JSON document. The identifier
+		// is taken from the hit and the version is left to the persistence provider, read-only properties are skipped
+		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
+		bodyBuilder.appendFormalLine(sEntityId + " " + javaBeanFieldName + " = new " + sEntityId + "();");
+		bodyBuilder.appendFormalLine("Object value;");
+		for (FieldMetadata field : indexedAccessors.values()) {
+			if (field.getFieldName().equals(identifierField.getFieldName()) || (versionField != null && field.getFieldName().equals(versionField.getFieldName()))) {
+				continue;
+			}
+			MethodMetadata mutatorMethod = mutatorDetails.get(field.getFieldName());
+			if (mutatorMethod == null) {
+				continue;
+			}
+			String mutator = javaBeanFieldName + "." + mutatorMethod.getMethodName().getSymbolName();
+			bodyBuilder.appendFormalLine("value = source.get(\"" + field.getFieldName().getSymbolName() + "\");");
+			if (field.getFieldType().equals(ElasticsearchUtils.CALENDAR)) {
+				JavaType calendar = ElasticsearchUtils.CALENDAR;
+				bodyBuilder.appendFormalLine("if (value != null) {");
+				bodyBuilder.indent();
+				bodyBuilder.appendFormalLine(getSimpleName(calendar) + " calendar = " + getSimpleName(calendar) + ".getInstance();");
+				bodyBuilder.appendFormalLine("calendar.setTimeInMillis(" + getDateMillis("value") + ");");
+				bodyBuilder.appendFormalLine(mutator + "(calendar);");
+				bodyBuilder.indentRemove();
+				bodyBuilder.appendFormalLine("}");
+			} else {
+				bodyBuilder.appendFormalLine("if (value != null) " + mutator + "(" + getValueFromSource(field, "value") + ");");
+			}
+		}
+		bodyBuilder.appendFormalLine("return " + javaBeanFieldName + ";");
+
+		List<JavaSymbolName> paramNames = new ArrayList<JavaSymbolName>();
+		paramNames.add(new JavaSymbolName("source"));
+		MethodMetadataBuilder methodBuilder = new MethodMetadataBuilder(getId(), Modifier.PUBLIC | Modifier.STATIC, methodName, destination, AnnotatedJavaType.convertFromJavaTypes(paramTypes), paramNames, bodyBuilder);
+		return methodBuilder.build();
+	}
+
+	private String getValueFromSource(FieldMetadata field, String value) {
+		JavaType type = field.getFieldType();
+		if (ElasticsearchUtils.isEnum(field)) {
+			return getSimpleName(type) + ".valueOf(" + value + ".toString())";
+		} else if (type.equals(JavaType.BOOLEAN_OBJECT) || type.equals(JavaType.BOOLEAN_PRIMITIVE)) {
+			return "(Boolean) " + value;
+		} else if (type.equals(JavaType.CHAR_OBJECT) || type.equals(JavaType.CHAR_PRIMITIVE)) {
+			return value + ".toString().charAt(0)";
+		} else if (type.equals(JavaType.BYTE_OBJECT) || type.equals(JavaType.BYTE_PRIMITIVE)) {
+			return "((Number) " + value + ").byteValue()";
+		} else if (type.equals(JavaType.SHORT_OBJECT) || type.equals(JavaType.SHORT_PRIMITIVE)) {
+			return "((Number) " + value + ").shortValue()";
+		} else if (type.equals(JavaType.INT_OBJECT) || type.equals(JavaType.INT_PRIMITIVE)) {
+			return "((Number) " + value + ").intValue()";
+		} else if (type.equals(JavaType.LONG_OBJECT) || type.equals(JavaType.LONG_PRIMITIVE)) {
+			return "((Number) " + value + ").longValue()";
+		} else if (type.equals(JavaType.FLOAT_OBJECT) || type.equals(JavaType.FLOAT_PRIMITIVE)) {
+			return "((Number) " + value + ").floatValue()";
+		} else if (type.equals(JavaType.DOUBLE_OBJECT) || type.equals(JavaType.DOUBLE_PRIMITIVE)) {
+			return "((Number) " + value + ").doubleValue()";
+		} else if (type.equals(ElasticsearchUtils.BIG_DECIMAL) || type.equals(ElasticsearchUtils.BIG_INTEGER)) {
+			return "new " + getSimpleName(type) + "(" + value + ".toString())";
+		} else if (type.equals(ElasticsearchUtils.DATE)) {
+			return "new " + getSimpleName(type) + "(" + getDateMillis(value) + ")";
+		}
+		return value + ".toString()";
+	}
+
+	private String getDateMillis(String value) {
+		// Dates are written by XContentBuilder in ISO 8601 format
+		return getSimpleName(new JavaType("org.elasticsearch.common.joda.time.format.ISODateTimeFormat")) + ".dateTimeParser().parseMillis(" + value + ".toString())";
+	}
+
+	private MethodMetadata getFromHitMethod(FieldMetadata identifierField) {
+		JavaSymbolName methodName = getFromHitMethodName();
+		List<JavaType> paramTypes = new ArrayList<JavaType>();
+		paramTypes.add(new JavaType("org.elasticsearch.search.SearchHit"));
+		MethodMetadata fromHit = MemberFindingUtils.getMethod(governorTypeDetails, methodName, paramTypes);
+		if (fromHit != null) return fromHit;
+
+		List<JavaType> mapParams = new ArrayList<JavaType>();
+		mapParams.add(JavaType.STRING_OBJECT);
+		mapParams.add(new JavaType("java.lang.Object"));
+		JavaType sourceMap = new JavaType(Map.class.getName(), 0, DataType.TYPE, null, mapParams);
+
+		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
+		bodyBuilder.appendFormalLine(getSimpleName(sourceMap) + " source = hit.sourceAsMap();");
+		bodyBuilder.appendFormalLine("if (source == null) {");
+		bodyBuilder.indent();
+		// Projected searches only return the requested fields
+		bodyBuilder.appendFormalLine("source = new " + getSimpleName(new JavaType("java.util.HashMap", 0, DataType.TYPE, null, mapParams)) + "();");
+		bodyBuilder.appendFormalLine("for (" + getSimpleName(new JavaType("org.elasticsearch.search.SearchHitField")) + " field : hit.getFields().values()) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("source.put(field.getName(), field.getValue());");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.appendFormalLine(getSimpleName(destination) + " " + javaBeanFieldName + " = " + getFromSourceMethodName() + "(source);");
+		bodyBuilder.appendFormalLine(javaBeanFieldName + "." + getMutatorName(identifierField).getSymbolName() + "(" + getIdFromString(identifierField.getFieldType(), "hit.getId()") + ");");
+		bodyBuilder.appendFormalLine("return " + javaBeanFieldName + ";");
+
+		List<JavaSymbolName> paramNames = new ArrayList<JavaSymbolName>();
+		paramNames.add(new JavaSymbolName("hit"));
+		MethodMetadataBuilder methodBuilder = new MethodMetadataBuilder(getId(), Modifier.PUBLIC | Modifier.STATIC, methodName, destination, AnnotatedJavaType.convertFromJavaTypes(paramTypes), paramNames, bodyBuilder);
+		return methodBuilder.build();
+	}
+
+	private MethodMetadata getStreamEntitiesMethod() {
+		JavaSymbolName methodName = new JavaSymbolName(annotationValues.getStreamMethod() + beanPlural);
+		List<JavaType> paramTypes = new ArrayList<JavaType>();
+		paramTypes.add(new JavaType("org.elasticsearch.index.query.QueryBuilder"));
+		MethodMetadata streamEntities = MemberFindingUtils.getMethod(governorTypeDetails, methodName, paramTypes);
+		if (streamEntities != null) return streamEntities;
+
+		List<JavaType> typeParams = new ArrayList<JavaType>();
+		typeParams.add(destination);
+		JavaType scrollIterator = getRuntimeType(ElasticsearchOperations.ES_SCROLL_ITERATOR_SIMPLE_TYPE);
+		JavaType entityIterator = new JavaType(scrollIterator.getFullyQualifiedTypeName(), 0, DataType.TYPE, null, typeParams);
+		JavaType searchBuilder = new JavaType("org.elasticsearch.client.action.search.SearchRequestBuilder");
+		String sEntityId = getSimpleName(destination);
+
+		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
+		bodyBuilder.appendFormalLine(getSimpleName(searchBuilder) + " searchBuilder = esClient().prepareSearch(\"" + getIndexName() + "\")");
+		bodyBuilder.appendFormalLine("        .setTypes(\"" + getTypeName() + "\")");
+		bodyBuilder.appendFormalLine("        .setQuery(queryBuilder)");
+		bodyBuilder.appendFormalLine("        .setSize(" + annotationValues.getScrollBatchSize() + ");");
+		bodyBuilder.appendFormalLine("return new " + getSimpleName(entityIterator) + "(esClient(), searchBuilder, \"" + annotationValues.getScrollKeepAlive() + "\", new " + getSimpleName(scrollIterator) + ".HitConverter<" + sEntityId + ">() {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("public " + sEntityId + " convert(" + getSimpleName(new JavaType("org.elasticsearch.search.SearchHit")) + " hit) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("return " + getFromHitMethodName() + "(hit);");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("});");
+
+		List<JavaSymbolName> paramNames = new ArrayList<JavaSymbolName>();
+		paramNames.add(new JavaSymbolName("queryBuilder"));
+		MethodMetadataBuilder methodBuilder = new MethodMetadataBuilder(getId(), Modifier.PUBLIC | Modifier.STATIC, methodName, entityIterator, AnnotatedJavaType.convertFromJavaTypes(paramTypes), paramNames, bodyBuilder);
+		return methodBuilder.build();
+	}
+
+	private MethodMetadata getSearchEntitiesFromSourceMethod() {
+		JavaSymbolName methodName = new JavaSymbolName(annotationValues.getSearchMethod() + beanPlural + "FromSource");
+		List<JavaType> paramTypes = new ArrayList<JavaType>();
+		paramTypes.add(new JavaType("org.elasticsearch.index.query.QueryBuilder"));
+		paramTypes.add(JavaType.INT_PRIMITIVE);
+		paramTypes.add(JavaType.INT_PRIMITIVE);
+		paramTypes.add(getFieldsType());
+		MethodMetadata searchFromSource = MemberFindingUtils.getMethod(governorTypeDetails, methodName, paramTypes);
+		if (searchFromSource != null) return searchFromSource;
+
+		List<JavaType> typeParams = new ArrayList<JavaType>();
+		typeParams.add(destination);
+		JavaType entityList = new JavaType(List.class.getName(), 0, DataType.TYPE, null, typeParams);
+		JavaType searchResponse = new JavaType("org.elasticsearch.action.search.SearchResponse");
+		String entities = beanPlural.toLowerCase();
+
+		// Detached instances holding the indexed fields only, the database is not queried
+		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
+		JavaType searchBuilder = new JavaType("org.elasticsearch.client.action.search.SearchRequestBuilder");
+		bodyBuilder.appendFormalLine(getSimpleName(searchBuilder) + " searchBuilder = esClient().prepareSearch(\"" + getIndexName() + "\")");
+		bodyBuilder.appendFormalLine("        .setTypes(\"" + getTypeName() + "\")");
+		bodyBuilder.appendFormalLine("        .setQuery(queryBuilder)");
+		bodyBuilder.appendFormalLine("        .setFrom(firstResult)");
+		bodyBuilder.appendFormalLine("        .setSize(maxResults);");
+		bodyBuilder.appendFormalLine("if (fields != null) searchBuilder.addFields(fields);");
+		bodyBuilder.appendFormalLine(getSimpleName(searchResponse) + " response = " + getExecuteSearch("queryBuilder", "firstResult", "maxResults", "fields") + ".actionGet();");
+		bodyBuilder.appendFormalLine(getSimpleName(entityList) + " " + entities + " = new " + getSimpleName(new JavaType(ArrayList.class.getName(), 0, DataType.TYPE, null, typeParams)) + "(response.getHits().getHits().length);");
+		bodyBuilder.appendFormalLine("for (" + getSimpleName(new JavaType("org.elasticsearch.search.SearchHit")) + " hit : response.getHits().getHits()) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine(entities + ".add(" + getFromHitMethodName() + "(hit));");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.appendFormalLine("return " + entities + ";");
+
+		List<JavaSymbolName> paramNames = new ArrayList<JavaSymbolName>();
+		paramNames.add(new JavaSymbolName("queryBuilder"));
+		paramNames.add(new JavaSymbolName("firstResult"));
+		paramNames.add(new JavaSymbolName("maxResults"));
+		paramNames.add(new JavaSymbolName("fields"));
+		MethodMetadataBuilder methodBuilder = new MethodMetadataBuilder(getId(), Modifier.PUBLIC | Modifier.STATIC, methodName, entityList, AnnotatedJavaType.convertFromJavaTypes(paramTypes), paramNames, bodyBuilder);
+		return methodBuilder.build();
+	}
+
+	private MethodMetadata getCountMethod() {
+		JavaSymbolName methodName = new JavaSymbolName(annotationValues.getCountMethod() + beanPlural);
+		List<JavaType> paramTypes = new ArrayList<JavaType>();
+		paramTypes.add(new JavaType("org.elasticsearch.index.query.QueryBuilder"));
+		MethodMetadata countMethod = MemberFindingUtils.getMethod(governorTypeDetails, methodName, paramTypes);
+		if (countMethod != null) return countMethod;
+
+		// The count API neither scores nor fetches hits
+		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
+		bodyBuilder.appendFormalLine("return esClient().prepareCount(\"" + getIndexName() + "\")");
+		bodyBuilder.appendFormalLine("        .setTypes(\"" + getTypeName() + "\")");
+		bodyBuilder.appendFormalLine("        .setQuery(queryBuilder)");
+		bodyBuilder.appendFormalLine("        .execute().actionGet().count();");
+
+		List<JavaSymbolName> paramNames = new ArrayList<JavaSymbolName>();
+		paramNames.add(new JavaSymbolName("queryBuilder"));
+		MethodMetadataBuilder methodBuilder = new MethodMetadataBuilder(getId(), Modifier.PUBLIC | Modifier.STATIC, methodName, JavaType.LONG_PRIMITIVE, AnnotatedJavaType.convertFromJavaTypes(paramTypes), paramNames, bodyBuilder);
+		return methodBuilder.build();
+	}
+
+	private MethodMetadata getExistsMethod() {
+		JavaSymbolName methodName = new JavaSymbolName(annotationValues.getExistsMethod() + destination.getSimpleTypeName());
+		List<JavaType> paramTypes = new ArrayList<JavaType>();
+		paramTypes.add(new JavaType("org.elasticsearch.index.query.QueryBuilder"));
+		MethodMetadata existsMethod = MemberFindingUtils.getMethod(governorTypeDetails, methodName, paramTypes);
+		if (existsMethod != null) return existsMethod;
+
+		// A count search type only collects the total, no hits are fetched
+		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
+		bodyBuilder.appendFormalLine("return esClient().prepareSearch(\"" + getIndexName() + "\")");
+		bodyBuilder.appendFormalLine("        .setTypes(\"" + getTypeName() + "\")");
+		bodyBuilder.appendFormalLine("        .setSearchType(" + getSimpleName(new JavaType("org.elasticsearch.action.search.SearchType")) + ".COUNT)");
+		bodyBuilder.appendFormalLine("        .setQuery(queryBuilder)");
+		bodyBuilder.appendFormalLine("        .setSize(0)");
+		bodyBuilder.appendFormalLine("        .execute().actionGet().getHits().getTotalHits() > 0;");
+
+		List<JavaSymbolName> paramNames = new ArrayList<JavaSymbolName>();
+		paramNames.add(new JavaSymbolName("queryBuilder"));
+		MethodMetadataBuilder methodBuilder = new MethodMetadataBuilder(getId(), Modifier.PUBLIC | Modifier.STATIC, methodName, JavaType.BOOLEAN_PRIMITIVE, AnnotatedJavaType.convertFromJavaTypes(paramTypes), paramNames, bodyBuilder);
+		return methodBuilder.build();
+	}
+
+	private MethodMetadata getSuggestMethod() {
+		JavaSymbolName methodName = new JavaSymbolName(annotationValues.getSuggestMethod() + beanPlural);
+		List<JavaType> paramTypes = new ArrayList<JavaType>();
+		paramTypes.add(JavaType.STRING_OBJECT);
+		MethodMetadata suggestMethod = MemberFindingUtils.getMethod(governorTypeDetails, methodName, paramTypes);
+		if (suggestMethod != null) return suggestMethod;
+
+		List<JavaType> typeParams = new ArrayList<JavaType>();
+		typeParams.add(JavaType.STRING_OBJECT);
+		typeParams.add(JavaType.STRING_OBJECT);
+		JavaType suggestionMap = new JavaType(Map.class.getName(), 0, DataType.TYPE, null, typeParams);
+		String sQueryBuildersId = getSimpleName(new JavaType("org.elasticsearch.index.query.QueryBuilders"));
+		String sSuggestCacheId = getSimpleName(getRuntimeType(ElasticsearchOperations.ES_SUGGEST_CACHE_SIMPLE_TYPE));
+		String query;
+		List<FieldMetadata> labelFields = new ArrayList<FieldMetadata>();
+		if (isSuggestable()) {
+			query = sQueryBuildersId + ".textQuery(\"" + SUGGEST_FIELD + "\", prefix).operator(" + getSimpleName(new JavaType("org.elasticsearch.index.query.TextQueryBuilder")) + ".Operator.AND)";
+			labelFields.addAll(suggestAccessors.values());
+		} else {
+			// No suggest field to look the prefix up in, match it against the free text instead
+			query = sQueryBuildersId + ".textPhrasePrefixQuery(\"_all\", prefix)";
+			for (FieldMetadata field : resultFields) {
+				if (field.getFieldType().equals(JavaType.STRING_OBJECT)) {
+					labelFields.add(field);
+				}
+			}
+		}
+		StringBuilder fields = new StringBuilder();
+		for (FieldMetadata field : labelFields) {
+			fields.append(fields.length() == 0 ? "" : ", ").append("\"").append(field.getFieldName().getSymbolName()).append("\"");
+		}
+
+		// Every keystroke is a request, so only a few hits are fetched and popular prefixes are cached
+		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
+		bodyBuilder.appendFormalLine("if (prefix == null || prefix.trim().length() == 0) return " + getSimpleName(new JavaType(Collections.class.getName())) + ".emptyMap();");
+		bodyBuilder.appendFormalLine(sSuggestCacheId + " cache = " + sSuggestCacheId + ".forType(\"" + getTypeName() + "\");");
+		bodyBuilder.appendFormalLine(getSimpleName(suggestionMap) + " suggestions = cache.get(prefix);");
+		bodyBuilder.appendFormalLine("if (suggestions != null) return suggestions;");
+		bodyBuilder.appendFormalLine("long generation = cache.generation();");
+		bodyBuilder.appendFormalLine(getSimpleName(new JavaType("org.elasticsearch.action.search.SearchResponse")) + " response = esClient().prepareSearch(\"" + getIndexName() + "\")");
+		bodyBuilder.appendFormalLine("        .setTypes(\"" + getTypeName() + "\")");
+		bodyBuilder.appendFormalLine("        .setQuery(" + query + ")");
+		bodyBuilder.appendFormalLine("        .setSize(" + SUGGEST_SIZE + ")");
+		if (!labelFields.isEmpty()) {
+			bodyBuilder.appendFormalLine("        .addFields(" + fields + ")");
+		}
+		bodyBuilder.appendFormalLine("        .execute().actionGet();");
+		bodyBuilder.appendFormalLine("suggestions = new " + getSimpleName(new JavaType(LinkedHashMap.class.getName(), 0, DataType.TYPE, null, typeParams)) + "();");
+		bodyBuilder.appendFormalLine("for (" + getSimpleName(new JavaType("org.elasticsearch.search.SearchHit")) + " hit : response.getHits()) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("StringBuilder label = new StringBuilder();");
+		bodyBuilder.appendFormalLine("for (String field : new String[] { " + fields + " }) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine(getSimpleName(new JavaType("org.elasticsearch.search.SearchHitField")) + " value = hit.field(field);");
+		bodyBuilder.appendFormalLine("if (value != null && value.getValue() != null) label.append(label.length() == 0 ? \"\" : \" \").append(value.getValue());");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.appendFormalLine("suggestions.put(hit.getId(), label.length() == 0 ? hit.getId() : label.toString());");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.appendFormalLine("return cache.put(prefix, generation, suggestions);");
+
+		List<JavaSymbolName> paramNames = new ArrayList<JavaSymbolName>();
+		paramNames.add(new JavaSymbolName("prefix"));
+		MethodMetadataBuilder methodBuilder = new MethodMetadataBuilder(getId(), Modifier.PUBLIC | Modifier.STATIC, methodName, suggestionMap, AnnotatedJavaType.convertFromJavaTypes(paramTypes), paramNames, bodyBuilder);
+		return methodBuilder.build();
+	}
+
+	private MethodMetadata getSearchRequestMethod() {
+		JavaSymbolName methodName = new JavaSymbolName(annotationValues.getSearchMethod() + beanPlural + "Request");
+		List<JavaType> paramTypes = new ArrayList<JavaType>();
+		paramTypes.add(new JavaType("org.elasticsearch.index.query.QueryBuilder"));
+		MethodMetadata searchRequest = MemberFindingUtils.getMethod(governorTypeDetails, methodName, paramTypes);
+		if (searchRequest != null) return searchRequest;
+
+		JavaType searchBuilder = new JavaType("org.elasticsearch.client.action.search.SearchRequestBuilder");
+
+		// Prepared but not executed, so it can be batched with an ElasticsearchMultiSearch
+		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
+		bodyBuilder.appendFormalLine("return esClient().prepareSearch(\"" + getIndexName() + "\")");
+		bodyBuilder.appendFormalLine("        .setTypes(\"" + getTypeName() + "\")");
+		bodyBuilder.appendFormalLine("        .setQuery(queryBuilder);");
+
+		List<JavaSymbolName> paramNames = new ArrayList<JavaSymbolName>();
+		paramNames.add(new JavaSymbolName("queryBuilder"));
+		MethodMetadataBuilder methodBuilder = new MethodMetadataBuilder(getId(), Modifier.PUBLIC | Modifier.STATIC, methodName, searchBuilder, AnnotatedJavaType.convertFromJavaTypes(paramTypes), paramNames, bodyBuilder);
+		return methodBuilder.build();
+	}
+
+	private MethodMetadata getRoutedSearchRequestMethod() {
+		JavaSymbolName methodName = new JavaSymbolName(annotationValues.getSearchMethod() + beanPlural + "Request");
+		List<JavaType> paramTypes = new ArrayList<JavaType>();
+		paramTypes.add(new JavaType("org.elasticsearch.index.query.QueryBuilder"));
+		paramTypes.add(routingField.getFieldType());
+		MethodMetadata searchRequest = MemberFindingUtils.getMethod(governorTypeDetails, methodName, paramTypes);
+		if (searchRequest != null) return searchRequest;
+
+		JavaType searchBuilder = new JavaType("org.elasticsearch.client.action.search.SearchRequestBuilder");
+		String routing = routingField.getFieldName().getSymbolName();
+
+		// Only the shard holding the documents of this routing value is searched
+		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
+		bodyBuilder.appendFormalLine("return " + annotationValues.getSearchMethod() + beanPlural + "Request(queryBuilder).setRouting(" + getRouting(routing) + ");");
+
+		List<JavaSymbolName> paramNames = new ArrayList<JavaSymbolName>();
+		paramNames.add(new JavaSymbolName("queryBuilder"));
+		paramNames.add(new JavaSymbolName(routing));
+		MethodMetadataBuilder methodBuilder = new MethodMetadataBuilder(getId(), Modifier.PUBLIC | Modifier.STATIC, methodName, searchBuilder, AnnotatedJavaType.convertFromJavaTypes(paramTypes), paramNames, bodyBuilder);
+		return methodBuilder.build();
+	}
+
+	private MethodMetadata getRoutedSearchEntitiesMethod() {
+		JavaSymbolName methodName = new JavaSymbolName(annotationValues.getSearchMethod() + beanPlural);
+		List<JavaType> paramTypes = new ArrayList<JavaType>();
+		paramTypes.add(new JavaType("org.elasticsearch.index.query.QueryBuilder"));
+		paramTypes.add(routingField.getFieldType());
+		paramTypes.add(JavaType.INT_PRIMITIVE);
+		paramTypes.add(JavaType.INT_PRIMITIVE);
+		MethodMetadata searchEntities = MemberFindingUtils.getMethod(governorTypeDetails, methodName, paramTypes);
+		if (searchEntities != null) return searchEntities;
+
+		List<JavaType> typeParams = new ArrayList<JavaType>();
+		typeParams.add(destination);
+		JavaType entityList = new JavaType(List.class.getName(), 0, DataType.TYPE, null, typeParams);
+		JavaType searchResponse = new JavaType("org.elasticsearch.action.search.SearchResponse");
+		String routing = routingField.getFieldName().getSymbolName();
+
+		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
+		bodyBuilder.appendFormalLine(getSimpleName(searchResponse) + " response = " + annotationValues.getSearchMethod() + beanPlural + "Request(queryBuilder, " + routing + ")");
+		bodyBuilder.appendFormalLine("        .setFrom(firstResult)");
+		bodyBuilder.appendFormalLine("        .setSize(maxResults)");
+		bodyBuilder.appendFormalLine("        .execute().actionGet();");
+		bodyBuilder.appendFormalLine("return " + getFindEntitiesForHitsMethodName() + "(response.getHits());");
+
+		List<JavaSymbolName> paramNames = new ArrayList<JavaSymbolName>();
+		paramNames.add(new JavaSymbolName("queryBuilder"));
+		paramNames.add(new JavaSymbolName(routing));
+		paramNames.add(new JavaSymbolName("firstResult"));
+		paramNames.add(new JavaSymbolName("maxResults"));
+		MethodMetadataBuilder methodBuilder = new MethodMetadataBuilder(getId(), Modifier.PUBLIC | Modifier.STATIC, methodName, entityList, AnnotatedJavaType.convertFromJavaTypes(paramTypes), paramNames, bodyBuilder);
+		return methodBuilder.build();
+	}
+
+	private MethodMetadata getRoutedCountMethod() {
+		JavaSymbolName methodName = new JavaSymbolName(annotationValues.getCountMethod() + beanPlural);
+		List<JavaType> paramTypes = new ArrayList<JavaType>();
+		paramTypes.add(new JavaType("org.elasticsearch.index.query.QueryBuilder"));
+		paramTypes.add(routingField.getFieldType());
+		MethodMetadata countMethod = MemberFindingUtils.getMethod(governorTypeDetails, methodName, paramTypes);
+		if (countMethod != null) return countMethod;
+
+		String routing = routingField.getFieldName().getSymbolName();
+
+		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
+		bodyBuilder.appendFormalLine("return esClient().prepareCount(\"" + getIndexName() + "\")");
+		bodyBuilder.appendFormalLine("        .setTypes(\"" + getTypeName() + "\")");
+		bodyBuilder.appendFormalLine("        .setRouting(" + getRouting(routing) + ")");
+		bodyBuilder.appendFormalLine("        .setQuery(queryBuilder)");
+		bodyBuilder.appendFormalLine("        .execute().actionGet().count();");
+
+		List<JavaSymbolName> paramNames = new ArrayList<JavaSymbolName>();
+		paramNames.add(new JavaSymbolName("queryBuilder"));
+		paramNames.add(new JavaSymbolName(routing));
+		MethodMetadataBuilder methodBuilder = new MethodMetadataBuilder(getId(), Modifier.PUBLIC | Modifier.STATIC, methodName, JavaType.LONG_PRIMITIVE, AnnotatedJavaType.convertFromJavaTypes(paramTypes), paramNames, bodyBuilder);
+		return methodBuilder.build();
+	}
+
+	private MethodMetadata getTimeRangeSearchRequestMethod() {
+		JavaSymbolName methodName = new JavaSymbolName(annotationValues.getSearchMethod() + beanPlural + "Request");
+		List<JavaType> paramTypes = new ArrayList<JavaType>();
+		paramTypes.add(new JavaType("org.elasticsearch.index.query.QueryBuilder"));
+		paramTypes.add(ElasticsearchUtils.DATE);
+		paramTypes.add(ElasticsearchUtils.DATE);
+		MethodMetadata searchRequest = MemberFindingUtils.getMethod(governorTypeDetails, methodName, paramTypes);
+		if (searchRequest != null) return searchRequest;
+
+		JavaType searchBuilder = new JavaType("org.elasticsearch.client.action.search.SearchRequestBuilder");
+		String sIndexNamesId = getSimpleName(getRuntimeType(ElasticsearchOperations.ES_INDEX_NAMES_SIMPLE_TYPE));
+
+		// Only the buckets overlapping the range are searched, the range filter trims their edges. Before anything has been
+		// written there is neither a bucket nor the alias, searching the alias then fails with an IndexMissingException
+		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
+		bodyBuilder.appendFormalLine("String[] buckets = " + sIndexNamesId + ".existingBuckets(esClient(), \"" + indexName + "\", \"" + annotationValues.getIndexStrategy() + "\", from, to);");
+		bodyBuilder.appendFormalLine("return esClient().prepareSearch(buckets.length == 0 ? new String[] { \"" + indexName + "\" } : buckets)");
+		appendTimeRangeQuery(bodyBuilder, ";");
+
+		List<JavaSymbolName> paramNames = new ArrayList<JavaSymbolName>();
+		paramNames.add(new JavaSymbolName("queryBuilder"));
+		paramNames.add(new JavaSymbolName("from"));
+		paramNames.add(new JavaSymbolName("to"));
+		MethodMetadataBuilder methodBuilder = new MethodMetadataBuilder(getId(), Modifier.PUBLIC | Modifier.STATIC, methodName, searchBuilder, AnnotatedJavaType.convertFromJavaTypes(paramTypes), paramNames, bodyBuilder);
+		return methodBuilder.build();
+	}
+
+	private void appendTimeRangeQuery(InvocableMemberBodyBuilder bodyBuilder, String end) {
+		bodyBuilder.appendFormalLine("        .setTypes(\"" + getTypeName() + "\")");
+		bodyBuilder.appendFormalLine("        .setQuery(" + getSimpleName(new JavaType("org.elasticsearch.index.query.QueryBuilders")) + ".filteredQuery(queryBuilder, " + getSimpleName(new JavaType("org.elasticsearch.index.query.FilterBuilders")) + ".rangeFilter(\"" + timestampField.getFieldName().getSymbolName() + "\").from(from).to(to)))" + end);
+	}
+
+	private MethodMetadata getTimeRangeSearchEntitiesMethod() {
+		JavaSymbolName methodName = new JavaSymbolName(annotationValues.getSearchMethod() + beanPlural);
+		List<JavaType> paramTypes = new ArrayList<JavaType>();
+		paramTypes.add(new JavaType("org.elasticsearch.index.query.QueryBuilder"));
+		paramTypes.add(ElasticsearchUtils.DATE);
+		paramTypes.add(ElasticsearchUtils.DATE);
+		paramTypes.add(JavaType.INT_PRIMITIVE);
+		paramTypes.add(JavaType.INT_PRIMITIVE);
+		MethodMetadata searchEntities = MemberFindingUtils.getMethod(governorTypeDetails, methodName, paramTypes);
+		if (searchEntities != null) return searchEntities;
+
+		List<JavaType> typeParams = new ArrayList<JavaType>();
+		typeParams.add(destination);
+		JavaType entityList = new JavaType(List.class.getName(), 0, DataType.TYPE, null, typeParams);
+		JavaType searchResponse = new JavaType("org.elasticsearch.action.search.SearchResponse");
+
+		// Searches the buckets directly, so a range nothing has been written to yet is answered without searching
+		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
+		bodyBuilder.appendFormalLine("String[] buckets = " + getSimpleName(getRuntimeType(ElasticsearchOperations.ES_INDEX_NAMES_SIMPLE_TYPE)) + ".existingBuckets(esClient(), \"" + indexName + "\", \"" + annotationValues.getIndexStrategy() + "\", from, to);");
+		bodyBuilder.appendFormalLine("if (buckets.length == 0) return new " + getSimpleName(new JavaType(ArrayList.class.getName(), 0, DataType.TYPE, null, typeParams)) + "();");
+		bodyBuilder.appendFormalLine(getSimpleName(searchResponse) + " response = esClient().prepareSearch(buckets)");
+		appendTimeRangeQuery(bodyBuilder, "");
+		bodyBuilder.appendFormalLine("        .setFrom(firstResult)");
+		bodyBuilder.appendFormalLine("        .setSize(maxResults)");
+		bodyBuilder.appendFormalLine("        .execute().actionGet();");
+		bodyBuilder.appendFormalLine("return " + getFindEntitiesForHitsMethodName() + "(response.getHits());");
+
+		List<JavaSymbolName> paramNames = new ArrayList<JavaSymbolName>();
+		paramNames.add(new JavaSymbolName("queryBuilder"));
+		paramNames.add(new JavaSymbolName("from"));
+		paramNames.add(new JavaSymbolName("to"));
+		paramNames.add(new JavaSymbolName("firstResult"));
+		paramNames.add(new JavaSymbolName("maxResults"));
+		MethodMetadataBuilder methodBuilder = new MethodMetadataBuilder(getId(), Modifier.PUBLIC | Modifier.STATIC, methodName, entityList, AnnotatedJavaType.convertFromJavaTypes(paramTypes), paramNames, bodyBuilder);
+		return methodBuilder.build();
+	}
+
+	private MethodMetadata getSearchFieldsMethod() {
+		JavaSymbolName methodName = new JavaSymbolName(annotationValues.getSearchMethod());
+		List<JavaType> paramTypes = new ArrayList<JavaType>();
+		paramTypes.add(new JavaType("org.elasticsearch.index.query.QueryBuilder"));
+		paramTypes.add(JavaType.INT_PRIMITIVE);
+		paramTypes.add(JavaType.INT_PRIMITIVE);
+		paramTypes.add(getFieldsType());
+		MethodMetadata searchFields = MemberFindingUtils.getMethod(governorTypeDetails, methodName, paramTypes);
+		if (searchFields != null) return searchFields;
+
+		List<JavaType> typeParams = new ArrayList<JavaType>();
+		typeParams.add(new JavaType("org.elasticsearch.action.search.SearchResponse"));
+		JavaType listenFuture = new JavaType("org.elasticsearch.action.ListenableActionFuture", 0, DataType.TYPE, null, typeParams);
+		JavaType searchBuilder = new JavaType("org.elasticsearch.client.action.search.SearchRequestBuilder");
+
+		// Hits only carry the requested fields, taken from stored fields or extracted from _source on the node
+		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
+		bodyBuilder.appendFormalLine(getSimpleName(searchBuilder) + " searchBuilder = esClient().prepareSearch(\"" + getIndexName() + "\")");
+		bodyBuilder.appendFormalLine("        .setTypes(\"" + getTypeName() + "\")");
+		bodyBuilder.appendFormalLine("        .setQuery(queryBuilder)");
+		bodyBuilder.appendFormalLine("        .setFrom(firstResult)");
+		bodyBuilder.appendFormalLine("        .setSize(maxResults);");
+		bodyBuilder.appendFormalLine("if (fields != null) searchBuilder.addFields(fields);");
+		bodyBuilder.appendFormalLine("return " + getExecuteSearch("queryBuilder", "firstResult", "maxResults", "fields") + ";");
+
+		List<JavaSymbolName> paramNames = new ArrayList<JavaSymbolName>();
+		paramNames.add(new JavaSymbolName("queryBuilder"));
+		paramNames.add(new JavaSymbolName("firstResult"));
+		paramNames.add(new JavaSymbolName("maxResults"));
+		paramNames.add(new JavaSymbolName("fields"));
 		MethodMetadataBuilder methodBuilder = new MethodMetadataBuilder(getId(), Modifier.PUBLIC | Modifier.STATIC, methodName, listenFuture, AnnotatedJavaType.convertFromJavaTypes(paramTypes), paramNames, bodyBuilder);
 		return methodBuilder.build();
 	}
 
+	private JavaType getFieldsType() {
+		return new JavaType(JavaType.STRING_OBJECT.getFullyQualifiedTypeName(), 1, DataType.TYPE, null, null);
+	}
+
+	private String getExecuteSearch(String query, String from, String size) {
+		return getExecuteSearch(query, from, size, null);
+	}
+
+	private String getExecuteSearch(String query, String from, String size, String fields) {
+		if (!annotationValues.isCacheSearches() && !annotationValues.isCoalesceSearches()) {
+			return "searchBuilder.execute()";
+		}
+		String type = getTypeName();
+		String key = getSimpleName(getRuntimeType(ElasticsearchOperations.ES_SEARCH_CACHE_SIMPLE_TYPE)) + ".key(\"" + getIndexName() + "\", \"" + type + "\", " + query + ", " + from + ", " + size + (fields != null ? ", " + fields : "") + ")";
+		if (!annotationValues.isCacheSearches()) {
+			// Identical searches in flight share one request and its response
+			return getSimpleName(getRuntimeType(ElasticsearchOperations.ES_SEARCH_COALESCER_SIMPLE_TYPE)) + ".execute(searchBuilder, \"" + type + "\", " + key + ")";
+		}
+		return "esSearchCache().search(searchBuilder, \"" + type + "\", " + key + (annotationValues.isCoalesceSearches() ? ", true" : "") + ")";
+	}
+
+	private boolean isSuggestable() {
+		return StringUtils.hasText(annotationValues.getSuggestMethod()) && annotationValues.getSuggestFields().length > 0;
+	}
+
+	private boolean isTimeBased() {
+		return "daily".equals(annotationValues.getIndexStrategy()) || "monthly".equals(annotationValues.getIndexStrategy());
+	}
+
+	/**
+	 * Returns the index searched by the generated methods, the alias of the buckets under a time based strategy.
+	 */
+	private String getIndexName() {
+		return indexName;
+	}
+
+	private String getTypeName() {
+		return destination.getSimpleTypeName().toLowerCase();
+	}
+
+	private String getWriteIndex(String bean, boolean create) {
+		if (!isTimeBased()) {
+			return "\"" + indexName + "\"";
+		}
+		String sIndexNamesId = getSimpleName(getRuntimeType(ElasticsearchOperations.ES_INDEX_NAMES_SIMPLE_TYPE));
+		String timestamp = bean + "." + timestampAccessor.getMethodName() + "()";
+		if (timestampField.getFieldType().equals(ElasticsearchUtils.CALENDAR)) {
+			timestamp = timestamp + " != null ? " + timestamp + ".getTime() : null";
+		}
+		String bucket = sIndexNamesId + ".bucket(\"" + indexName + "\", \"" + annotationValues.getIndexStrategy() + "\", " + timestamp + ")";
+		if (!create) {
+			return bucket;
+		}
+		// New buckets are created and added to the alias before their first document is written
+		return sIndexNamesId + ".ensureBucket(esClient(), \"" + indexName + "\", " + bucket + ")";
+	}
+
+	/**
+	 * Returns the expression of the _uid of the entity's document, which unlike _id is indexed and can be queried.
+	 */
+	private String getUid(String bean, MethodMetadata identifierAccessor) {
+		return "\"" + getTypeName() + "#\" + " + bean + "." + identifierAccessor.getMethodName() + "()";
+	}
+
+	private String getRouting(String value) {
+		// A null routing value falls back to routing by identifier, for writes and reads alike
+		String routing = "String.valueOf(" + getSourceValue(value, routingField) + ")";
+		if (routingField.getFieldType().isPrimitive()) {
+			return routing;
+		}
+		return value + " != null ? " + routing + " : null";
+	}
+
+	private String getDeleteRouting() {
+		if (routingAccessor == null) {
+			return "";
+		}
+		return ".routing(" + getRouting(javaBeanFieldName + "." + routingAccessor.getMethodName() + "()") + ")";
+	}
+
+	private String getIdFromString(JavaType idType, String value) {
+		idType = ElasticsearchUtils.getBoxedType(idType);
+		if (idType.equals(JavaType.STRING_OBJECT)) {
+			return value;
+		} else if (idType.equals(ElasticsearchUtils.BIG_INTEGER) || idType.equals(ElasticsearchUtils.BIG_DECIMAL)) {
+			return "new " + getSimpleName(idType) + "(" + value + ")";
+		}
+		return getSimpleName(idType) + ".valueOf(" + value + ")";
+	}
+
 	private MethodMetadata getEsNodeMethod() {
 		JavaSymbolName methodName = new JavaSymbolName("esClient");
 		MethodMetadata esClientMethod = MemberFindingUtils.getMethod(governorTypeDetails, methodName, new ArrayList<JavaType>());
@@ -334,6 +1655,79 @@ public class ElasticsearchMetadata extends AbstractItdTypeDetailsProvidingMetada
 		return methodBuilder.build();
 	}
 
+	private MethodMetadata getEsBulkProcessorMethod() {
+		JavaSymbolName methodName = new JavaSymbolName("esBulkProcessor");
+		MethodMetadata esBulkProcessorMethod = MemberFindingUtils.getMethod(governorTypeDetails, methodName, new ArrayList<JavaType>());
+		if (esBulkProcessorMethod != null) return esBulkProcessorMethod;
+
+		JavaType bulkProcessor = getRuntimeType(ElasticsearchOperations.ES_BULK_PROCESSOR_SIMPLE_TYPE);
+		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
+		bodyBuilder.appendFormalLine(getSimpleName(bulkProcessor) + " _esBulkProcessor = new " + destination.getSimpleTypeName() + "().esBulkProcessor;");
+		bodyBuilder.appendFormalLine("if (_esBulkProcessor == null) throw new IllegalStateException(\"Elasticsearch bulk processor has not been injected (is the Spring Aspects JAR configured as an AJC/AJDT aspects library?)\");");
+		bodyBuilder.appendFormalLine("return _esBulkProcessor;");
+
+		MethodMetadataBuilder methodBuilder = new MethodMetadataBuilder(getId(), Modifier.PUBLIC | Modifier.STATIC | Modifier.FINAL, methodName, bulkProcessor, bodyBuilder);
+		return methodBuilder.build();
+	}
+
+	private MethodMetadata getEsSearchCacheMethod() {
+		JavaSymbolName methodName = new JavaSymbolName("esSearchCache");
+		MethodMetadata esSearchCacheMethod = MemberFindingUtils.getMethod(governorTypeDetails, methodName, new ArrayList<JavaType>());
+		if (esSearchCacheMethod != null) return esSearchCacheMethod;
+
+		JavaType searchCache = getRuntimeType(ElasticsearchOperations.ES_SEARCH_CACHE_SIMPLE_TYPE);
+		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
+		bodyBuilder.appendFormalLine(getSimpleName(searchCache) + " _esSearchCache = new " + destination.getSimpleTypeName() + "().esSearchCache;");
+		bodyBuilder.appendFormalLine("if (_esSearchCache == null) throw new IllegalStateException(\"Elasticsearch search cache has not been injected (is the Spring Aspects JAR configured as an AJC/AJDT aspects library?)\");");
+		bodyBuilder.appendFormalLine("return _esSearchCache;");
+
+		MethodMetadataBuilder methodBuilder = new MethodMetadataBuilder(getId(), Modifier.PUBLIC | Modifier.STATIC | Modifier.FINAL, methodName, searchCache, bodyBuilder);
+		return methodBuilder.build();
+	}
+
+	private JavaSymbolName getSourceMethodName() {
+		return new JavaSymbolName("toElasticsearchSource");
+	}
+
+	/**
+	 * Returns the name of the JavaBean mutator of the field, whether its accessor is named getX() or isX().
+	 * 
+	 * @param field the field (required)
+	 * @return the mutator name
+	 */
+	public static JavaSymbolName getMutatorName(FieldMetadata field) {
+		Assert.notNull(field, "Field required");
+		return new JavaSymbolName("set" + StringUtils.capitalize(field.getFieldName().getSymbolName()));
+	}
+
+	private JavaSymbolName getFromSourceMethodName() {
+		return new JavaSymbolName("fromElasticsearchSource");
+	}
+
+	private JavaSymbolName getFromHitMethodName() {
+		return new JavaSymbolName("fromElasticsearchHit");
+	}
+
+	private JavaSymbolName getMappingMethodName() {
+		return new JavaSymbolName("elasticsearchMapping");
+	}
+
+	private JavaSymbolName getSettingsMethodName() {
+		return new JavaSymbolName("elasticsearchSettings");
+	}
+
+	private JavaSymbolName getFindEntitiesForHitsMethodName() {
+		return new JavaSymbolName("find" + beanPlural + "ForHits");
+	}
+
+	private JavaSymbolName getIndexRequestMethodName() {
+		return new JavaSymbolName(annotationValues.getIndexMethod() + destination.getSimpleTypeName() + "Request");
+	}
+
+	private JavaType getRuntimeType(String simpleTypeName) {
+		return new JavaType(ElasticsearchMetadata.class.getPackage().getName() + "." + simpleTypeName);
+	}
+
 	private String getSimpleName(JavaType type) {
 		return type.getNameIncludingTypeParameters(false, builder.getImportRegistrationResolver());
 	}
@@ -1,7 +1,9 @@
 package org.springframework.roo.addon.elasticsearch;
 
 import java.lang.reflect.Modifier;
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.apache.felix.scr.annotations.Component;
@@ -23,6 +25,7 @@ import org.springframework.roo.classpath.itd.AbstractItdMetadataProvider;
 import org.springframework.roo.classpath.itd.ItdTypeDetailsProvidingMetadataItem;
 import org.springframework.roo.classpath.scanner.MemberDetails;
 import org.springframework.roo.metadata.MetadataIdentificationUtils;
+import org.springframework.roo.model.JavaSymbolName;
 import org.springframework.roo.model.JavaType;
 import org.springframework.roo.project.Path;
 
@@ -90,7 +93,18 @@ public final class ElasticsearchMetadataProvider extends AbstractItdMetadataProv
 				metadataDependencyRegistry.registerDependency(methodMetadata.getDeclaredByMetadataId(), metadataIdentificationString);
 			}
 		}
-		return new ElasticsearchMetadata(metadataIdentificationString, aspectName, annotationValues, governorPhysicalTypeMetadata, entityMetadata.getIdentifierAccessor(), entityMetadata.getVersionField(), accessorDetails, beanPlural);
+		// Mutators are looked up by field name, boolean accessors may be named isX() instead of getX()
+		Map<JavaSymbolName, MethodMetadata> mutatorDetails = new LinkedHashMap<JavaSymbolName, MethodMetadata>();
+		for (FieldMetadata fieldMetadata : accessorDetails.values()) {
+			List<JavaType> paramTypes = new ArrayList<JavaType>();
+			paramTypes.add(fieldMetadata.getFieldType());
+			MethodMetadata mutator = MemberFindingUtils.getMethod(memberDetails, ElasticsearchMetadata.getMutatorName(fieldMetadata), paramTypes);
+			if (mutator != null) {
+				mutatorDetails.put(fieldMetadata.getFieldName(), mutator);
+				metadataDependencyRegistry.registerDependency(mutator.getDeclaredByMetadataId(), metadataIdentificationString);
+			}
+		}
+		return new ElasticsearchMetadata(metadataIdentificationString, aspectName, annotationValues, governorPhysicalTypeMetadata, entityMetadata.getIdentifierField(), entityMetadata.getIdentifierAccessor(), entityMetadata.getVersionField(), accessorDetails, mutatorDetails, beanPlural);
 	}
 	
 	protected String getLocalMidToRequest(ItdTypeDetails itdTypeDetails) {
@@ -116,7 +130,9 @@ public final class ElasticsearchMetadataProvider extends AbstractItdMetadataProv
 	}
 	
 	private boolean isMethodOfInterest(MethodMetadata method) {
-		return method.getMethodName().getSymbolName().startsWith("get") && method.getParameterTypes().isEmpty() && Modifier.isPublic(method.getModifier());
+		String methodName = method.getMethodName().getSymbolName();
+		boolean accessor = methodName.startsWith("get") || (methodName.startsWith("is") && method.getReturnType().equals(JavaType.BOOLEAN_PRIMITIVE));
+		return accessor && method.getParameterTypes().isEmpty() && Modifier.isPublic(method.getModifier());
 	}
 	
 	public String getItdUniquenessFilenameSuffix() {
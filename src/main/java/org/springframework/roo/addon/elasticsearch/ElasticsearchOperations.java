@@ -12,12 +12,46 @@ public interface ElasticsearchOperations {
 	public static final String ES_CLIENT_FACTORY_SIMPLE_TYPE = 
 		"ElasticsearchClientFactoryBean";
 	
+	public static final String ES_TRANSACTION_INDEXER_SIMPLE_TYPE = 
+		"ElasticsearchTransactionIndexer";
+	
+	public static final String ES_BULK_PROCESSOR_SIMPLE_TYPE = 
+		"ElasticsearchBulkProcessor";
+	
+	public static final String ES_SEARCH_CACHE_SIMPLE_TYPE = 
+		"ElasticsearchSearchCache";
+	
+	public static final String ES_SCROLL_ITERATOR_SIMPLE_TYPE = 
+		"ElasticsearchScrollIterator";
+	
+	public static final String ES_MULTI_SEARCH_SIMPLE_TYPE = 
+		"ElasticsearchMultiSearch";
+	
+	public static final String ES_INDEX_NAMES_SIMPLE_TYPE = 
+		"ElasticsearchIndexNames";
+	
+	public static final String ES_INDEX_INITIALIZER_SIMPLE_TYPE = 
+		"ElasticsearchIndexInitializer";
+	
+	public static final String ES_BULK_LOAD_SIMPLE_TYPE = 
+		"ElasticsearchBulkLoad";
+	
+	public static final String ES_SUGGEST_CACHE_SIMPLE_TYPE = 
+		"ElasticsearchSuggestCache";
+	
+	public static final String ES_WRITE_GENERATIONS_SIMPLE_TYPE = 
+		"ElasticsearchWriteGenerations";
+	
+	public static final String ES_SEARCH_COALESCER_SIMPLE_TYPE = 
+		"ElasticsearchSearchCoalescer";
+	
+	public static final String ES_BULK_RESULT_SIMPLE_TYPE = 
+		"ElasticsearchBulkResult";
+	
 	public boolean isInstallSearchAvailable();
 	
 	public boolean isSearchAvailable();
 	
-	public boolean isJsonAddonAvailable();
-	
 	public void setupConfig(String searchHost, int searchPort);
 	
 	public void addSearch(JavaType javaType);
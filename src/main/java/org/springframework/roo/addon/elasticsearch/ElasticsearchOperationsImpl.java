@@ -26,7 +26,6 @@ import org.springframework.roo.classpath.details.ClassOrInterfaceTypeDetails;
 import org.springframework.roo.classpath.details.MemberFindingUtils;
 import org.springframework.roo.classpath.details.MutableClassOrInterfaceTypeDetails;
 import org.springframework.roo.classpath.details.annotations.AnnotationMetadataBuilder;
-import org.springframework.roo.addon.json.RooJson;
 import org.springframework.roo.metadata.MetadataService;
 import org.springframework.roo.model.JavaType;
 import org.springframework.roo.process.manager.FileManager;
@@ -56,7 +55,6 @@ public class ElasticsearchOperationsImpl implements ElasticsearchOperations {
 	
 	private static final Dependency ES = new Dependency("org.elasticsearch", "elasticsearch", "0.17.5");
 	private static final Dependency ES_ADDON = new Dependency("org.springframework.roo.addon.elasticsearch", "org.springframework.roo.addon.elasticsearch", "0.1.0.BUILD-SNAPSHOT", DependencyType.JAR, DependencyScope.PROVIDED);
-	private static final Dependency JSON_ADDON = new Dependency("org.springframework.roo","org.springframework.roo.addon.json","LATEST", DependencyType.JAR, DependencyScope.PROVIDED);
 	
 	@Reference private FileManager fileManager;
 	@Reference private PhysicalTypeMetadataProvider physicalTypeMetadataProvider;
@@ -72,10 +70,6 @@ public class ElasticsearchOperationsImpl implements ElasticsearchOperations {
 		return esPropsInstalled();
 	}
 	
-	public boolean isJsonAddonAvailable() {
-		return projectOperations.getProjectMetadata().isDependencyRegistered(JSON_ADDON);
-	}
-	
 	private boolean esPropsInstalled() {
 		return fileManager.exists(projectOperations.getPathResolver().getIdentifier(Path.SPRING_CONFIG_ROOT, "es.properties"));
 	}
@@ -89,7 +83,6 @@ public class ElasticsearchOperationsImpl implements ElasticsearchOperations {
 		// Install the dependency on the add-on jar (
 		dependencies.add(ES_ADDON);
 		dependencies.add(ES);
-		dependencies.add(JSON_ADDON);
 		
 		projectOperations.addDependencies(dependencies);
 
@@ -97,7 +90,19 @@ public class ElasticsearchOperationsImpl implements ElasticsearchOperations {
 			"".equalsIgnoreCase(esHost) ||
 			"embedded".equalsIgnoreCase(esHost);
 		
-		installESNodeFactoryBean();
+		installTemplate(ES_CLIENT_FACTORY_SIMPLE_TYPE);
+		installTemplate(ES_TRANSACTION_INDEXER_SIMPLE_TYPE);
+		installTemplate(ES_BULK_PROCESSOR_SIMPLE_TYPE);
+		installTemplate(ES_SEARCH_CACHE_SIMPLE_TYPE);
+		installTemplate(ES_SCROLL_ITERATOR_SIMPLE_TYPE);
+		installTemplate(ES_MULTI_SEARCH_SIMPLE_TYPE);
+		installTemplate(ES_INDEX_NAMES_SIMPLE_TYPE);
+		installTemplate(ES_INDEX_INITIALIZER_SIMPLE_TYPE);
+		installTemplate(ES_BULK_LOAD_SIMPLE_TYPE);
+		installTemplate(ES_SUGGEST_CACHE_SIMPLE_TYPE);
+		installTemplate(ES_WRITE_GENERATIONS_SIMPLE_TYPE);
+		installTemplate(ES_SEARCH_COALESCER_SIMPLE_TYPE);
+		installTemplate(ES_BULK_RESULT_SIMPLE_TYPE);
 		updateESProperties();
 		updateESConfig();
 
@@ -115,47 +120,87 @@ public class ElasticsearchOperationsImpl implements ElasticsearchOperations {
 		}
 
 		Element esClient = XmlUtils.findFirstElement("/beans/bean[@id='esClient']", root);
-		if (esClient != null) {
-			return;
-		}
-
-		XmlElementBuilder beanBuilder = 
-			new XmlElementBuilder("bean", appCtx)
-				.addAttribute("id", "esClient")
-				.addAttribute("class", getClass().getPackage().getName() + "." + ES_CLIENT_FACTORY_SIMPLE_TYPE)
-				.addChild(new XmlElementBuilder("property", appCtx)
-					.addAttribute("name", "configLocation")
-					.addAttribute("value", "classpath:META-INF/elasticsearch/es.yml")
+		if (esClient == null) {
+			XmlElementBuilder beanBuilder = 
+				new XmlElementBuilder("bean", appCtx)
+					.addAttribute("id", "esClient")
+					.addAttribute("class", getClass().getPackage().getName() + "." + ES_CLIENT_FACTORY_SIMPLE_TYPE)
+					.addChild(new XmlElementBuilder("property", appCtx)
+						.addAttribute("name", "configLocation")
+						.addAttribute("value", "classpath:META-INF/elasticsearch/es.yml")
+						.build());
+			
+			if(!embedded) {
+				beanBuilder.addChild(new XmlElementBuilder("property", appCtx)
+					.addAttribute("name", "transportAddresses")
+					.addChild(new XmlElementBuilder("map", appCtx)
+						.addChild(new XmlElementBuilder("entry", appCtx)
+							.addAttribute("key", esHost)
+							.addAttribute("value", String.valueOf(esPort))
+							.build())
+						.build())
 					.build());
+	
+			}
+			
+			root.appendChild(beanBuilder.build());
+		}
 		
-		if(!embedded) {
-			beanBuilder.addChild(new XmlElementBuilder("property", appCtx)
-				.addAttribute("name", "transportAddresses")
-				.addChild(new XmlElementBuilder("map", appCtx)
-					.addChild(new XmlElementBuilder("entry", appCtx)
-						.addAttribute("key", esHost)
-						.addAttribute("value", String.valueOf(esPort))
-						.build())
-					.build())
+		Element esSearchCache = XmlUtils.findFirstElement("/beans/bean[@id='esSearchCache']", root);
+		if (esSearchCache == null) {
+			root.appendChild(new XmlElementBuilder("bean", appCtx)
+				.addAttribute("id", "esSearchCache")
+				.addAttribute("class", getClass().getPackage().getName() + "." + ES_SEARCH_CACHE_SIMPLE_TYPE)
+				.addChild(new XmlElementBuilder("property", appCtx).addAttribute("name", "enabled").addAttribute("value", "${search.cache.enabled}").build())
+				.addChild(new XmlElementBuilder("property", appCtx).addAttribute("name", "maxEntries").addAttribute("value", "${search.cache.maxEntries}").build())
+				.addChild(new XmlElementBuilder("property", appCtx).addAttribute("name", "maxBytes").addAttribute("value", "${search.cache.maxBytes}").build())
+				.addChild(new XmlElementBuilder("property", appCtx).addAttribute("name", "timeToLive").addAttribute("value", "${search.cache.timeToLive}").build())
+				.build());
+		}
+		
+		// All generated index and delete methods write through the bulk processor (bounded queue, bounded concurrency)
+		Element esBulkProcessor = XmlUtils.findFirstElement("/beans/bean[@id='esBulkProcessor']", root);
+		if (esBulkProcessor == null) {
+			root.appendChild(new XmlElementBuilder("bean", appCtx)
+				.addAttribute("id", "esBulkProcessor")
+				.addAttribute("class", getClass().getPackage().getName() + "." + ES_BULK_PROCESSOR_SIMPLE_TYPE)
+				.addChild(new XmlElementBuilder("property", appCtx).addAttribute("name", "client").addAttribute("ref", "esClient").build())
+				.addChild(new XmlElementBuilder("property", appCtx).addAttribute("name", "queueCapacity").addAttribute("value", "${bulk.queueCapacity}").build())
+				.addChild(new XmlElementBuilder("property", appCtx).addAttribute("name", "concurrentRequests").addAttribute("value", "${bulk.concurrentRequests}").build())
+				.addChild(new XmlElementBuilder("property", appCtx).addAttribute("name", "flushActions").addAttribute("value", "${bulk.flushActions}").build())
+				.addChild(new XmlElementBuilder("property", appCtx).addAttribute("name", "flushBytes").addAttribute("value", "${bulk.flushBytes}").build())
+				.addChild(new XmlElementBuilder("property", appCtx).addAttribute("name", "flushInterval").addAttribute("value", "${bulk.flushInterval}").build())
+				.addChild(new XmlElementBuilder("property", appCtx).addAttribute("name", "blockWhenFull").addAttribute("value", "${bulk.blockWhenFull}").build())
+				.addChild(new XmlElementBuilder("property", appCtx).addAttribute("name", "maxRetries").addAttribute("value", "${bulk.maxRetries}").build())
+				.addChild(new XmlElementBuilder("property", appCtx).addAttribute("name", "retryBackoff").addAttribute("value", "${bulk.retryBackoff}").build())
+				.addChild(new XmlElementBuilder("property", appCtx).addAttribute("name", "deadLetterFile").addAttribute("value", "${bulk.deadLetterFile}").build())
+				.build());
+		}
+		
+		// Creates indices with their explicit mapping and settings on startup
+		Element esIndexInitializer = XmlUtils.findFirstElement("/beans/bean[@id='esIndexInitializer']", root);
+		if (esIndexInitializer == null) {
+			root.appendChild(new XmlElementBuilder("bean", appCtx)
+				.addAttribute("id", "esIndexInitializer")
+				.addAttribute("class", getClass().getPackage().getName() + "." + ES_INDEX_INITIALIZER_SIMPLE_TYPE)
+				.addChild(new XmlElementBuilder("property", appCtx).addAttribute("name", "basePackage").addAttribute("value", projectOperations.getProjectMetadata().getTopLevelPackage().getFullyQualifiedPackageName()).build())
 				.build());
-
 		}
 		
-		root.appendChild(beanBuilder.build());
 		XmlUtils.removeTextNodes(root);
 		
 		fileManager.createOrUpdateTextFileIfRequired(contextPath, XmlUtils.nodeToString(appCtx), false);
 	}
 	
-	private void installESNodeFactoryBean() {
-		JavaType javaType = new JavaType(getClass().getPackage().getName() + "." + ES_CLIENT_FACTORY_SIMPLE_TYPE);
+	private void installTemplate(String simpleTypeName) {
+		JavaType javaType = new JavaType(getClass().getPackage().getName() + "." + simpleTypeName);
 		
 		String physicalPath = typeLocationService.getPhysicalLocationCanonicalPath(javaType, Path.SRC_MAIN_JAVA);
 		if (fileManager.exists(physicalPath)) {
 			return;
 		}
 		try {
-			InputStream template = TemplateUtils.getTemplate(getClass(), ES_CLIENT_FACTORY_SIMPLE_TYPE + "._java");
+			InputStream template = TemplateUtils.getTemplate(getClass(), simpleTypeName + "._java");
 			String input = FileCopyUtils.copyToString(new InputStreamReader(template));
 			MutableFile mutableFile = fileManager.createFile(physicalPath);
 			FileCopyUtils.copy(input.getBytes(), mutableFile.getOutputStream());
@@ -177,6 +222,19 @@ public class ElasticsearchOperationsImpl implements ElasticsearchOperations {
 		}
 
 		props.put("executor.poolSize", "10");
+		props.put("bulk.queueCapacity", "10000");
+		props.put("bulk.concurrentRequests", "2");
+		props.put("bulk.flushActions", "1000");
+		props.put("bulk.flushBytes", "5242880");
+		props.put("bulk.flushInterval", "1000");
+		props.put("bulk.blockWhenFull", "true");
+		props.put("bulk.maxRetries", "3");
+		props.put("bulk.retryBackoff", "100");
+		props.put("bulk.deadLetterFile", "${java.io.tmpdir}/elasticsearch/dead-letters.log");
+		props.put("search.cache.enabled", "true");
+		props.put("search.cache.maxEntries", "1000");
+		props.put("search.cache.maxBytes", "16777216");
+		props.put("search.cache.timeToLive", "5000");
 
 		OutputStream outputStream = null;
 		try {
@@ -250,14 +308,8 @@ public class ElasticsearchOperationsImpl implements ElasticsearchOperations {
 
 	private void addElasticsearchSearchableAnnotation(ClassOrInterfaceTypeDetails typeDetails) {
 		JavaType RooElasticsearchSearchable = new JavaType(RooElasticsearchSearchable.class.getName());
-		JavaType RooJsonAnnotation = new JavaType(RooJson.class.getName());
 		
 		if (MemberFindingUtils.getTypeAnnotation(typeDetails, RooElasticsearchSearchable) == null) {
-			if(MemberFindingUtils.getTypeAnnotation(typeDetails, RooJsonAnnotation) == null) {
-				AnnotationMetadataBuilder jsonAnnotationBuilder = new AnnotationMetadataBuilder(RooJsonAnnotation);
-				((MutableClassOrInterfaceTypeDetails) typeDetails).addTypeAnnotation(jsonAnnotationBuilder.build());
-			}
-			
 			AnnotationMetadataBuilder annotationBuilder = new AnnotationMetadataBuilder(RooElasticsearchSearchable);
 			((MutableClassOrInterfaceTypeDetails) typeDetails).addTypeAnnotation(annotationBuilder.build());
 		}
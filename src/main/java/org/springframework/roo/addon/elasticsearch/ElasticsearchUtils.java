@@ -1,5 +1,10 @@
 package org.springframework.roo.addon.elasticsearch;
 
+import java.util.Arrays;
+import java.util.List;
+
+import org.springframework.roo.classpath.details.FieldMetadata;
+import org.springframework.roo.classpath.details.MemberFindingUtils;
 import org.springframework.roo.model.JavaType;
 
 /**
@@ -11,23 +16,98 @@ import org.springframework.roo.model.JavaType;
  */
 public abstract class ElasticsearchUtils {
 	
-	public static String getElasticsearchDynamicFieldPostFix(JavaType type) {
-		if (type.equals(JavaType.INT_OBJECT) || type.equals(JavaType.INT_PRIMITIVE)) {
-			return "_i";
-		} else if (type.equals(JavaType.STRING_OBJECT)) {
-			return "_s";
-		} else if (type.equals(JavaType.LONG_OBJECT) || type.equals(JavaType.LONG_PRIMITIVE)) {
-			return "_l";
+	public static final JavaType DATE = new JavaType("java.util.Date");
+	public static final JavaType CALENDAR = new JavaType("java.util.Calendar");
+	public static final JavaType BIG_DECIMAL = new JavaType("java.math.BigDecimal");
+	public static final JavaType BIG_INTEGER = new JavaType("java.math.BigInteger");
+	public static final JavaType ENUMERATED = new JavaType("javax.persistence.Enumerated");
+	
+	private static final List<JavaType> SIMPLE_TYPES = Arrays.asList(JavaType.STRING_OBJECT, 
+		JavaType.BOOLEAN_OBJECT, JavaType.BOOLEAN_PRIMITIVE, JavaType.CHAR_OBJECT, JavaType.CHAR_PRIMITIVE, 
+		JavaType.BYTE_OBJECT, JavaType.BYTE_PRIMITIVE, JavaType.SHORT_OBJECT, JavaType.SHORT_PRIMITIVE, 
+		JavaType.INT_OBJECT, JavaType.INT_PRIMITIVE, JavaType.LONG_OBJECT, JavaType.LONG_PRIMITIVE, 
+		JavaType.FLOAT_OBJECT, JavaType.FLOAT_PRIMITIVE, JavaType.DOUBLE_OBJECT, JavaType.DOUBLE_PRIMITIVE, 
+		DATE, CALENDAR, BIG_DECIMAL, BIG_INTEGER);
+	
+	/**
+	 * Indicates whether a field can be written to (and read from) an Elasticsearch document as a single value. 
+	 * Associations, collections and arrays are not indexed.
+	 * 
+	 * @param field the field to check
+	 * @return true if the field holds a simple value or an enum
+	 */
+	public static boolean isIndexableField(FieldMetadata field) {
+		JavaType type = field.getFieldType();
+		if (type.isArray()) {
+			return false;
+		}
+		if (MemberFindingUtils.getAnnotationOfType(field.getAnnotations(), ENUMERATED) != null) {
+			return true;
+		}
+		return SIMPLE_TYPES.contains(type);
+	}
+	
+	/**
+	 * Returns the wrapper type of a primitive type, for use as a type parameter or a nullable variable.
+	 * 
+	 * @param type the type to box
+	 * @return the wrapper type, or the type itself if it is not primitive
+	 */
+	public static JavaType getBoxedType(JavaType type) {
+		if (!type.isPrimitive()) {
+			return type;
+		}
+		for (JavaType boxed : Arrays.asList(JavaType.BOOLEAN_OBJECT, JavaType.CHAR_OBJECT, JavaType.BYTE_OBJECT, JavaType.SHORT_OBJECT, JavaType.INT_OBJECT, JavaType.LONG_OBJECT, JavaType.FLOAT_OBJECT, JavaType.DOUBLE_OBJECT)) {
+			if (boxed.getFullyQualifiedTypeName().equals(type.getFullyQualifiedTypeName())) {
+				return boxed;
+			}
+		}
+		return type;
+	}
+	
+	public static boolean isEnum(FieldMetadata field) {
+		return MemberFindingUtils.getAnnotationOfType(field.getAnnotations(), ENUMERATED) != null;
+	}
+	
+	/**
+	 * Indicates whether a field holds a single term, such as an enum constant, which is mapped as not analyzed 
+	 * whether it is used as facet or not.
+	 * 
+	 * @param field the field to check
+	 * @return true if the field value must not be analyzed
+	 */
+	public static boolean isKeywordField(FieldMetadata field) {
+		JavaType type = field.getFieldType();
+		return isEnum(field) || type.equals(JavaType.CHAR_OBJECT) || type.equals(JavaType.CHAR_PRIMITIVE);
+	}
+	
+	/**
+	 * Returns the Elasticsearch core type used to map an indexable field.
+	 * 
+	 * @param field the field to map
+	 * @return the mapping type of the field
+	 */
+	public static String getElasticsearchFieldType(FieldMetadata field) {
+		JavaType type = field.getFieldType();
+		if (isEnum(field)) {
+			return "string";
 		} else if (type.equals(JavaType.BOOLEAN_OBJECT) || type.equals(JavaType.BOOLEAN_PRIMITIVE)) {
-			return "_b";
+			return "boolean";
+		} else if (type.equals(JavaType.BYTE_OBJECT) || type.equals(JavaType.BYTE_PRIMITIVE)) {
+			return "byte";
+		} else if (type.equals(JavaType.SHORT_OBJECT) || type.equals(JavaType.SHORT_PRIMITIVE)) {
+			return "short";
+		} else if (type.equals(JavaType.INT_OBJECT) || type.equals(JavaType.INT_PRIMITIVE)) {
+			return "integer";
+		} else if (type.equals(JavaType.LONG_OBJECT) || type.equals(JavaType.LONG_PRIMITIVE) || type.equals(BIG_INTEGER)) {
+			return "long";
 		} else if (type.equals(JavaType.FLOAT_OBJECT) || type.equals(JavaType.FLOAT_PRIMITIVE)) {
-			return "_f";
-		} else if (type.equals(JavaType.DOUBLE_OBJECT) || type.equals(JavaType.DOUBLE_PRIMITIVE)) {
-			return "_d";
-		} else if (type.equals(new JavaType("java.util.Date")) || type.equals(new JavaType("java.util.Calendar"))) {
-			return "_dt";
-		} else {
-			return "_t";
+			return "float";
+		} else if (type.equals(JavaType.DOUBLE_OBJECT) || type.equals(JavaType.DOUBLE_PRIMITIVE) || type.equals(BIG_DECIMAL)) {
+			return "double";
+		} else if (type.equals(DATE) || type.equals(CALENDAR)) {
+			return "date";
 		}
+		return "string";
 	}
 }
@@ -2,11 +2,14 @@ package org.springframework.roo.addon.elasticsearch;
 
 import java.lang.reflect.Modifier;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.springframework.roo.addon.web.mvc.controller.scaffold.WebScaffoldAnnotationValues;
 import org.springframework.roo.classpath.PhysicalTypeIdentifierNamingUtils;
 import org.springframework.roo.classpath.PhysicalTypeMetadata;
+import org.springframework.roo.classpath.details.FieldMetadata;
 import org.springframework.roo.classpath.details.MethodMetadata;
 import org.springframework.roo.classpath.details.MethodMetadataBuilder;
 import org.springframework.roo.classpath.details.annotations.AnnotatedJavaType;
@@ -18,6 +21,7 @@ import org.springframework.roo.classpath.details.annotations.StringAttributeValu
 import org.springframework.roo.classpath.itd.AbstractItdTypeDetailsProvidingMetadataItem;
 import org.springframework.roo.classpath.itd.InvocableMemberBodyBuilder;
 import org.springframework.roo.metadata.MetadataIdentificationUtils;
+import org.springframework.roo.model.DataType;
 import org.springframework.roo.model.JavaSymbolName;
 import org.springframework.roo.model.JavaType;
 import org.springframework.roo.project.Path;
@@ -25,7 +29,7 @@ import org.springframework.roo.support.style.ToStringCreator;
 import org.springframework.roo.support.util.Assert;
 
 /**
- * Metadata for {@link RooSolrWebSearchable}.
+ * Metadata for {@link RooElasticsearchWebSearchable}.
  * 
  * @author Stefan Schmidt
  * @since 1.1
@@ -33,55 +37,66 @@ import org.springframework.roo.support.util.Assert;
 public class ElasticsearchWebSearchMetadata extends AbstractItdTypeDetailsProvidingMetadataItem {
 	private static final String PROVIDES_TYPE_STRING = ElasticsearchWebSearchMetadata.class.getName(); 
 	private static final String PROVIDES_TYPE = MetadataIdentificationUtils.create(PROVIDES_TYPE_STRING);
+	private static final int FACET_SIZE = 10;
 
-	public ElasticsearchWebSearchMetadata(String identifier, JavaType aspectName, PhysicalTypeMetadata governorPhysicalTypeMetadata, ElasticsearchWebSearchAnnotationValues annotationValues, WebScaffoldAnnotationValues webScaffoldAnnotationValues, ElasticsearchAnnotationValues elasticSearchAnnotationValues) {
+	private String entityPlural;
+	private List<FieldMetadata> resultFields;
+
+	public ElasticsearchWebSearchMetadata(String identifier, JavaType aspectName, PhysicalTypeMetadata governorPhysicalTypeMetadata, ElasticsearchWebSearchAnnotationValues annotationValues, WebScaffoldAnnotationValues webScaffoldAnnotationValues, ElasticsearchAnnotationValues elasticSearchAnnotationValues, String entityPlural, List<FieldMetadata> resultFields) {
 		super(identifier, aspectName, governorPhysicalTypeMetadata);
 		Assert.notNull(webScaffoldAnnotationValues, "Web scaffold annotation values required");
 		Assert.notNull(annotationValues, "Elasticsearch web searchable annotation values required");
 		Assert.notNull(elasticSearchAnnotationValues, "Elasticsearch search annotation values required");
+		Assert.hasText(entityPlural, "Plural representation of the form backing object required");
+		Assert.notNull(resultFields, "Result fields required");
 		Assert.isTrue(isValid(identifier), "Metadata identification string '" + identifier + "' does not appear to be a valid");
 
 		if (!isValid()) {
 			return;
 		}
+		this.entityPlural = entityPlural;
+		this.resultFields = resultFields;
 		
+		boolean validated = false;
 		if (annotationValues.getSearchMethod() != null && annotationValues.getSearchMethod().length() > 0) {
+			validated = true;
 			builder.addMethod(getSearchMethod(annotationValues, elasticSearchAnnotationValues, webScaffoldAnnotationValues));
+			builder.addMethod(getSearchJsonMethod(annotationValues, elasticSearchAnnotationValues, webScaffoldAnnotationValues));
+			builder.addMethod(getSearchRequestMethod(annotationValues, elasticSearchAnnotationValues, webScaffoldAnnotationValues));
 		}
-		if (annotationValues.getAutoCompleteMethod() != null && annotationValues.getAutoCompleteMethod().length() > 0) {
+		// Autocomplete is served by the suggest method of the entity, which falls back to a prefix query without suggest fields
+		if (annotationValues.getAutoCompleteMethod() != null && annotationValues.getAutoCompleteMethod().length() > 0 && elasticSearchAnnotationValues.getSuggestMethod().length() > 0) {
+			validated = true;
 			builder.addMethod(getAutocompleteMethod(annotationValues, elasticSearchAnnotationValues, webScaffoldAnnotationValues));
 		}
+		if (validated) {
+			builder.addMethod(getNotModifiedMethod());
+		}
 		
 		// Create a representation of the desired output ITD
 		itdTypeDetails = builder.build();
 	}
 	
-	private MethodMetadata getSearchMethod(ElasticsearchWebSearchAnnotationValues solrWebSearchAnnotationValues, ElasticsearchAnnotationValues searchAnnotationValues, WebScaffoldAnnotationValues webScaffoldAnnotationValues) {
+	private MethodMetadata getSearchMethod(ElasticsearchWebSearchAnnotationValues elasticsearchWebSearchAnnotationValues, ElasticsearchAnnotationValues searchAnnotationValues, WebScaffoldAnnotationValues webScaffoldAnnotationValues) {
 		JavaType targetObject = webScaffoldAnnotationValues.getFormBackingObject();
 		Assert.notNull(targetObject, "Could not aquire form backing object for the '" + webScaffoldAnnotationValues.getGovernorTypeDetails().getName().getFullyQualifiedTypeName() + "' controller");
 		
-		JavaSymbolName methodName = new JavaSymbolName(solrWebSearchAnnotationValues.getSearchMethod());
+		JavaSymbolName methodName = new JavaSymbolName(elasticsearchWebSearchAnnotationValues.getSearchMethod());
 		MethodMetadata method = methodExists(methodName);
 		if (method != null) return method;
 
-		List<AnnotatedJavaType> paramTypes = new ArrayList<AnnotatedJavaType>();
-		List<JavaSymbolName> paramNames = new ArrayList<JavaSymbolName>();
-		
-		paramTypes.add(new AnnotatedJavaType(new JavaType("String"), getRequestParamAnnotation("q", false)));
-		paramNames.add(new JavaSymbolName("q"));
-		
-		paramTypes.add(new AnnotatedJavaType(new JavaType("String"), getRequestParamAnnotation("fq", false)));
-		paramNames.add(new JavaSymbolName("facetQuery"));
-		
-		paramTypes.add(new AnnotatedJavaType(new JavaType("Integer"), getRequestParamAnnotation("page", false)));
-		paramNames.add(new JavaSymbolName("page"));
-		
-		paramTypes.add(new AnnotatedJavaType(new JavaType("Integer"), getRequestParamAnnotation("size", false)));
-		paramNames.add(new JavaSymbolName("size"));
+		List<AnnotatedJavaType> paramTypes = getSearchParamTypes();
+		List<JavaSymbolName> paramNames = getSearchParamNames();
 		
 		paramTypes.add(new AnnotatedJavaType(new JavaType("org.springframework.ui.ModelMap"), null));	
 		paramNames.add(new JavaSymbolName("modelMap"));
 		
+		paramTypes.add(new AnnotatedJavaType(JavaType.STRING_OBJECT, getIfNoneMatchAnnotation()));
+		paramNames.add(new JavaSymbolName("ifNoneMatch"));
+		
+		paramTypes.add(new AnnotatedJavaType(new JavaType("javax.servlet.http.HttpServletResponse"), null));	
+		paramNames.add(new JavaSymbolName("response"));
+		
 		List<AnnotationAttributeValue<?>> requestMappingAttributes = new ArrayList<AnnotationAttributeValue<?>>();
 		requestMappingAttributes.add(new StringAttributeValue(new JavaSymbolName("params"), "search"));
 		AnnotationMetadataBuilder requestMapping = new AnnotationMetadataBuilder(new JavaType("org.springframework.web.bind.annotation.RequestMapping"), requestMappingAttributes);
@@ -89,15 +104,53 @@ public class ElasticsearchWebSearchMetadata extends AbstractItdTypeDetailsProvid
 		List<AnnotationMetadataBuilder> annotations = new ArrayList<AnnotationMetadataBuilder>();
 		annotations.add(requestMapping);
 
-		String solrQuerySimpleName = new JavaType("org.apache.solr.client.solrj.SolrQuery").getNameIncludingTypeParameters(false, builder.getImportRegistrationResolver());
+		String targetSimpleName = getSimpleName(targetObject);
+		String searchResponseSimpleName = getSimpleName(new JavaType("org.elasticsearch.action.search.SearchResponse"));
+		String searchHitSimpleName = getSimpleName(new JavaType("org.elasticsearch.search.SearchHit"));
+		List<JavaType> entityParams = new ArrayList<JavaType>();
+		entityParams.add(targetObject);
+		String[] facetFields = searchAnnotationValues.getFacetFields();
+		
 		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder(); 	
+		appendNotModified(bodyBuilder, searchAnnotationValues, targetObject, "search", "null", "q, facetQuery, page, size");
 		bodyBuilder.appendFormalLine("if (q != null && q.length() != 0) {");
 		bodyBuilder.indent();
-		bodyBuilder.appendFormalLine(solrQuerySimpleName + " solrQuery = new " + solrQuerySimpleName + "(\"" + webScaffoldAnnotationValues.getFormBackingObject().getSimpleTypeName().toLowerCase() + "_solrsummary_t:\" + q.toLowerCase());");
-
-		bodyBuilder.appendFormalLine("if (page != null) solrQuery.setStart(page);");
-		bodyBuilder.appendFormalLine("if (size != null) solrQuery.setRows(size);");		
-		bodyBuilder.appendFormalLine("modelMap.addAttribute(\"searchResults\", " + targetObject.getFullyQualifiedTypeName() + "." + searchAnnotationValues.getSearchMethod() + "(solrQuery).getResults());");
+		bodyBuilder.appendFormalLine("int sizeNo = size == null ? 10 : size.intValue();");
+		bodyBuilder.appendFormalLine("int firstResult = page == null || page.intValue() < 1 ? 0 : (page.intValue() - 1) * sizeNo;");
+		bodyBuilder.appendFormalLine(searchResponseSimpleName + " response = " + getSearchRequestMethodName(elasticsearchWebSearchAnnotationValues) + "(q, facetQuery, firstResult, sizeNo).execute().actionGet();");
+		bodyBuilder.appendFormalLine(getSimpleName(new JavaType(List.class.getName(), 0, DataType.TYPE, null, entityParams)) + " searchResults = new " + getSimpleName(new JavaType(ArrayList.class.getName(), 0, DataType.TYPE, null, entityParams)) + "(response.getHits().getHits().length);");
+		bodyBuilder.appendFormalLine("for (" + searchHitSimpleName + " hit : response.getHits().getHits()) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("searchResults.add(" + targetSimpleName + ".fromElasticsearchHit(hit));");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.appendFormalLine("modelMap.addAttribute(\"searchResults\", searchResults);");
+		bodyBuilder.appendFormalLine("modelMap.addAttribute(\"searchResultCount\", response.getHits().getTotalHits());");
+		bodyBuilder.appendFormalLine("float nrOfPages = (float) response.getHits().getTotalHits() / sizeNo;");
+		bodyBuilder.appendFormalLine("modelMap.addAttribute(\"maxPages\", (int) ((nrOfPages > (int) nrOfPages || nrOfPages == 0.0) ? nrOfPages + 1 : nrOfPages));");
+		if (facetFields.length > 0) {
+			List<JavaType> countParams = new ArrayList<JavaType>();
+			countParams.add(JavaType.STRING_OBJECT);
+			countParams.add(JavaType.LONG_OBJECT);
+			JavaType countMap = new JavaType(Map.class.getName(), 0, DataType.TYPE, null, countParams);
+			List<JavaType> facetParams = new ArrayList<JavaType>();
+			facetParams.add(JavaType.STRING_OBJECT);
+			facetParams.add(countMap);
+			String termsFacetSimpleName = getSimpleName(new JavaType("org.elasticsearch.search.facet.terms.TermsFacet"));
+			bodyBuilder.appendFormalLine(getSimpleName(new JavaType(Map.class.getName(), 0, DataType.TYPE, null, facetParams)) + " searchFacets = new " + getSimpleName(new JavaType(LinkedHashMap.class.getName(), 0, DataType.TYPE, null, facetParams)) + "();");
+			bodyBuilder.appendFormalLine("for (String facetField : new String[] { " + toStringArrayLiteral(facetFields) + " }) {");
+			bodyBuilder.indent();
+			bodyBuilder.appendFormalLine(getSimpleName(countMap) + " counts = new " + getSimpleName(new JavaType(LinkedHashMap.class.getName(), 0, DataType.TYPE, null, countParams)) + "();");
+			bodyBuilder.appendFormalLine("for (" + termsFacetSimpleName + ".Entry entry : response.facets().facet(" + termsFacetSimpleName + ".class, facetField)) {");
+			bodyBuilder.indent();
+			bodyBuilder.appendFormalLine("counts.put(entry.term(), Long.valueOf(entry.count()));");
+			bodyBuilder.indentRemove();
+			bodyBuilder.appendFormalLine("}");
+			bodyBuilder.appendFormalLine("searchFacets.put(facetField, counts);");
+			bodyBuilder.indentRemove();
+			bodyBuilder.appendFormalLine("}");
+			bodyBuilder.appendFormalLine("modelMap.addAttribute(\"searchFacets\", searchFacets);");
+		}
 		bodyBuilder.indentRemove();
 		bodyBuilder.appendFormalLine("}");
 		bodyBuilder.appendFormalLine("return \"" + webScaffoldAnnotationValues.getPath() + "/search\";");
@@ -107,8 +160,144 @@ public class ElasticsearchWebSearchMetadata extends AbstractItdTypeDetailsProvid
 		return methodBuilder.build();
 	}
 	
-	private MethodMetadata getAutocompleteMethod(ElasticsearchWebSearchAnnotationValues solrWebSearchAnnotationValues, ElasticsearchAnnotationValues searchAnnotationValues, WebScaffoldAnnotationValues webScaffoldAnnotationValues) {
-		JavaSymbolName methodName = new JavaSymbolName(solrWebSearchAnnotationValues.getAutoCompleteMethod());		
+	private MethodMetadata getSearchJsonMethod(ElasticsearchWebSearchAnnotationValues elasticsearchWebSearchAnnotationValues, ElasticsearchAnnotationValues searchAnnotationValues, WebScaffoldAnnotationValues webScaffoldAnnotationValues) {
+		JavaSymbolName methodName = new JavaSymbolName(elasticsearchWebSearchAnnotationValues.getSearchMethod() + "Json");
+		MethodMetadata method = methodExists(methodName);
+		if (method != null) return method;
+
+		List<AnnotatedJavaType> paramTypes = getSearchParamTypes();
+		List<JavaSymbolName> paramNames = getSearchParamNames();
+		
+		paramTypes.add(new AnnotatedJavaType(JavaType.STRING_OBJECT, getIfNoneMatchAnnotation()));
+		paramNames.add(new JavaSymbolName("ifNoneMatch"));
+		
+		paramTypes.add(new AnnotatedJavaType(new JavaType("javax.servlet.http.HttpServletResponse"), null));	
+		paramNames.add(new JavaSymbolName("response"));
+		
+		List<AnnotationAttributeValue<?>> requestMappingAttributes = new ArrayList<AnnotationAttributeValue<?>>();
+		requestMappingAttributes.add(new StringAttributeValue(new JavaSymbolName("params"), "search"));
+		requestMappingAttributes.add(new StringAttributeValue(new JavaSymbolName("headers"), "Accept=application/json"));
+		
+		List<AnnotationMetadataBuilder> annotations = new ArrayList<AnnotationMetadataBuilder>();
+		annotations.add(new AnnotationMetadataBuilder(new JavaType("org.springframework.web.bind.annotation.RequestMapping"), requestMappingAttributes));
+
+		String[] facetFields = searchAnnotationValues.getFacetFields();
+		String termsFacetSimpleName = getSimpleName(new JavaType("org.elasticsearch.search.facet.terms.TermsFacet"));
+		
+		// Hits are written to the response as they are read from the search response, no entity or model is built
+		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder(); 	
+		bodyBuilder.appendFormalLine("if (q == null || q.length() == 0) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("response.setStatus(" + getSimpleName(new JavaType("javax.servlet.http.HttpServletResponse")) + ".SC_BAD_REQUEST);");
+		bodyBuilder.appendFormalLine("return;");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		appendNotModified(bodyBuilder, searchAnnotationValues, webScaffoldAnnotationValues.getFormBackingObject(), "searchJson", "", "q, facetQuery, page, size");
+		bodyBuilder.appendFormalLine("int sizeNo = size == null ? 10 : size.intValue();");
+		bodyBuilder.appendFormalLine("int firstResult = page == null || page.intValue() < 1 ? 0 : (page.intValue() - 1) * sizeNo;");
+		// Searched before the output stream is opened, so a failing search can still be answered with an error page
+		bodyBuilder.appendFormalLine(getSimpleName(new JavaType("org.elasticsearch.action.search.SearchResponse")) + " searchResponse = " + getSearchRequestMethodName(elasticsearchWebSearchAnnotationValues) + "(q, facetQuery, firstResult, sizeNo).execute().actionGet();");
+		bodyBuilder.appendFormalLine("try {");
+		bodyBuilder.indent();
+		appendJsonBuilder(bodyBuilder, "json");
+		bodyBuilder.appendFormalLine("json.field(\"total\", searchResponse.getHits().getTotalHits()).startArray(\"hits\");");
+		bodyBuilder.appendFormalLine("for (" + getSimpleName(new JavaType("org.elasticsearch.search.SearchHit")) + " hit : searchResponse.getHits()) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("json.startObject().field(\"id\", hit.getId());");
+		bodyBuilder.appendFormalLine("for (" + getSimpleName(new JavaType("org.elasticsearch.search.SearchHitField")) + " field : hit.getFields().values()) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("json.field(field.getName(), field.getValue());");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.appendFormalLine("json.endObject();");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.appendFormalLine("json.endArray();");
+		if (facetFields.length > 0) {
+			bodyBuilder.appendFormalLine("json.startObject(\"facets\");");
+			bodyBuilder.appendFormalLine("for (String facetField : new String[] { " + toStringArrayLiteral(facetFields) + " }) {");
+			bodyBuilder.indent();
+			bodyBuilder.appendFormalLine("json.startObject(facetField);");
+			bodyBuilder.appendFormalLine("for (" + termsFacetSimpleName + ".Entry entry : searchResponse.facets().facet(" + termsFacetSimpleName + ".class, facetField)) {");
+			bodyBuilder.indent();
+			bodyBuilder.appendFormalLine("json.field(entry.term(), entry.count());");
+			bodyBuilder.indentRemove();
+			bodyBuilder.appendFormalLine("}");
+			bodyBuilder.appendFormalLine("json.endObject();");
+			bodyBuilder.indentRemove();
+			bodyBuilder.appendFormalLine("}");
+			bodyBuilder.appendFormalLine("json.endObject();");
+		}
+		bodyBuilder.appendFormalLine("json.endObject().close();");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("} catch (" + getSimpleName(new JavaType("java.io.IOException")) + " e) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("throw new IllegalStateException(\"Unable to write search results\", e);");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		
+		MethodMetadataBuilder methodBuilder = new MethodMetadataBuilder(getId(), Modifier.PUBLIC, methodName, JavaType.VOID_PRIMITIVE, paramTypes, paramNames, bodyBuilder);
+		methodBuilder.setAnnotations(annotations);
+		return methodBuilder.build();
+	}
+	
+	private MethodMetadata getSearchRequestMethod(ElasticsearchWebSearchAnnotationValues elasticsearchWebSearchAnnotationValues, ElasticsearchAnnotationValues searchAnnotationValues, WebScaffoldAnnotationValues webScaffoldAnnotationValues) {
+		JavaSymbolName methodName = getSearchRequestMethodName(elasticsearchWebSearchAnnotationValues);
+		MethodMetadata method = methodExists(methodName);
+		if (method != null) return method;
+
+		List<AnnotatedJavaType> paramTypes = new ArrayList<AnnotatedJavaType>();
+		List<JavaSymbolName> paramNames = new ArrayList<JavaSymbolName>();
+		paramTypes.add(new AnnotatedJavaType(JavaType.STRING_OBJECT, null));
+		paramNames.add(new JavaSymbolName("q"));
+		paramTypes.add(new AnnotatedJavaType(new JavaType(JavaType.STRING_OBJECT.getFullyQualifiedTypeName(), 1, DataType.TYPE, null, null), null));
+		paramNames.add(new JavaSymbolName("facetQuery"));
+		paramTypes.add(new AnnotatedJavaType(JavaType.INT_PRIMITIVE, null));
+		paramNames.add(new JavaSymbolName("firstResult"));
+		paramTypes.add(new AnnotatedJavaType(JavaType.INT_PRIMITIVE, null));
+		paramNames.add(new JavaSymbolName("sizeNo"));
+
+		JavaType searchBuilder = new JavaType("org.elasticsearch.client.action.search.SearchRequestBuilder");
+		String queryBuilderSimpleName = getSimpleName(new JavaType("org.elasticsearch.index.query.QueryBuilder"));
+		String queryBuildersSimpleName = getSimpleName(new JavaType("org.elasticsearch.index.query.QueryBuilders"));
+		String filterBuildersSimpleName = getSimpleName(new JavaType("org.elasticsearch.index.query.FilterBuilders"));
+		
+		// Only fetch the fields rendered by the result table
+		StringBuilder fields = new StringBuilder();
+		for (FieldMetadata field : resultFields) {
+			fields.append(fields.length() == 0 ? "" : ", ").append("\"").append(field.getFieldName().getSymbolName()).append("\"");
+		}
+		
+		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder(); 	
+		bodyBuilder.appendFormalLine(queryBuilderSimpleName + " query = new " + getSimpleName(new JavaType("org.elasticsearch.index.query.QueryStringQueryBuilder")) + "(q);");
+		// Each fq=field:value narrows the hits without affecting their score
+		bodyBuilder.appendFormalLine("if (facetQuery != null) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("for (String fq : facetQuery) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("int colon = fq.indexOf(':');");
+		bodyBuilder.appendFormalLine("if (colon > 0) query = " + queryBuildersSimpleName + ".filteredQuery(query, " + filterBuildersSimpleName + ".termFilter(fq.substring(0, colon), fq.substring(colon + 1)));");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		// Hits and facet counts come back in a single request
+		bodyBuilder.appendFormalLine(getSimpleName(searchBuilder) + " searchBuilder = " + getSimpleName(webScaffoldAnnotationValues.getFormBackingObject()) + "." + searchAnnotationValues.getSearchMethod() + entityPlural + "Request(query)");
+		bodyBuilder.appendFormalLine("        .setFrom(firstResult)");
+		bodyBuilder.appendFormalLine("        .setSize(sizeNo)" + (fields.length() == 0 ? ";" : ""));
+		if (fields.length() > 0) {
+			bodyBuilder.appendFormalLine("        .addFields(" + fields + ");");
+		}
+		for (String facetField : searchAnnotationValues.getFacetFields()) {
+			bodyBuilder.appendFormalLine("searchBuilder.addFacet(" + getSimpleName(new JavaType("org.elasticsearch.search.facet.FacetBuilders")) + ".termsFacet(\"" + facetField + "\").field(\"" + facetField + "\").size(" + FACET_SIZE + "));");
+		}
+		bodyBuilder.appendFormalLine("return searchBuilder;");
+		
+		return new MethodMetadataBuilder(getId(), Modifier.PRIVATE, methodName, searchBuilder, paramTypes, paramNames, bodyBuilder).build();
+	}
+	
+	private MethodMetadata getAutocompleteMethod(ElasticsearchWebSearchAnnotationValues elasticsearchWebSearchAnnotationValues, ElasticsearchAnnotationValues searchAnnotationValues, WebScaffoldAnnotationValues webScaffoldAnnotationValues) {
+		JavaSymbolName methodName = new JavaSymbolName(elasticsearchWebSearchAnnotationValues.getAutoCompleteMethod());		
 		
 		MethodMetadata method = methodExists(methodName);
 		if (method != null) return method;
@@ -118,7 +307,6 @@ public class ElasticsearchWebSearchMetadata extends AbstractItdTypeDetailsProvid
 		
 		List<AnnotationMetadataBuilder> annotations = new ArrayList<AnnotationMetadataBuilder>();
 		annotations.add(new AnnotationMetadataBuilder(new JavaType("org.springframework.web.bind.annotation.RequestMapping"), reqMapAttributes));
-		annotations.add(new AnnotationMetadataBuilder(new JavaType("org.springframework.web.bind.annotation.ResponseBody")));
 		
 		List<AnnotatedJavaType> paramTypes = new ArrayList<AnnotatedJavaType>();
 		List<JavaSymbolName> paramNames = new ArrayList<JavaSymbolName>();
@@ -126,46 +314,121 @@ public class ElasticsearchWebSearchMetadata extends AbstractItdTypeDetailsProvid
 		paramTypes.add(new AnnotatedJavaType(JavaType.STRING_OBJECT, getRequestParamAnnotation("q", true)));
 		paramNames.add(new JavaSymbolName("q"));
 		
-		paramTypes.add(new AnnotatedJavaType(JavaType.STRING_OBJECT, getRequestParamAnnotation("facetFields", true)));
-		paramNames.add(new JavaSymbolName("facetFields"));
+		paramTypes.add(new AnnotatedJavaType(JavaType.STRING_OBJECT, getIfNoneMatchAnnotation()));
+		paramNames.add(new JavaSymbolName("ifNoneMatch"));
 		
-		paramTypes.add(new AnnotatedJavaType(new JavaType(Integer.class.getName()), getRequestParamAnnotation("rows", false)));
-		paramNames.add(new JavaSymbolName("rows"));
-	
-		String solrQuerySimpleName = new JavaType("org.apache.solr.client.solrj.SolrQuery").getNameIncludingTypeParameters(false, builder.getImportRegistrationResolver());
-		String facetFieldSimpleName = new JavaType("org.apache.solr.client.solrj.response.FacetField").getNameIncludingTypeParameters(false, builder.getImportRegistrationResolver());
-
-		String queryResponseSimpleName = new JavaType("org.apache.solr.client.solrj.response.QueryResponse").getNameIncludingTypeParameters(false, builder.getImportRegistrationResolver());
+		paramTypes.add(new AnnotatedJavaType(new JavaType("javax.servlet.http.HttpServletResponse"), null));	
+		paramNames.add(new JavaSymbolName("response"));
+		
+		List<JavaType> suggestionParams = new ArrayList<JavaType>();
+		suggestionParams.add(JavaType.STRING_OBJECT);
+		suggestionParams.add(JavaType.STRING_OBJECT);
+		JavaType suggestionMap = new JavaType(Map.class.getName(), 0, DataType.TYPE, null, suggestionParams);
+		String targetSimpleName = getSimpleName(webScaffoldAnnotationValues.getFormBackingObject());
 
+		// Only the suggest field is queried, a fixed number of suggestions with popular prefixes cached by the entity
 		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
-		bodyBuilder.appendFormalLine("StringBuilder dojo = new StringBuilder(\"{identifier:'id',label:'label',items:[\");");
-		bodyBuilder.appendFormalLine(solrQuerySimpleName + " solrQuery = new SolrQuery(q.toLowerCase());");
-		bodyBuilder.appendFormalLine("solrQuery.setRows(rows == null ? 10 : rows);");
-		bodyBuilder.appendFormalLine("solrQuery.setFacetMinCount(1);");
-		bodyBuilder.appendFormalLine("solrQuery.addFacetField(facetFields.split(\",\"));");
-		bodyBuilder.appendFormalLine(queryResponseSimpleName + " response = " + webScaffoldAnnotationValues.getFormBackingObject().getNameIncludingTypeParameters(false, builder.getImportRegistrationResolver()) + "." + searchAnnotationValues.getSearchMethod() + "(solrQuery);");
-		bodyBuilder.appendFormalLine("for (" + facetFieldSimpleName + " field: response.getFacetFields()) {");
+		appendNotModified(bodyBuilder, searchAnnotationValues, webScaffoldAnnotationValues.getFormBackingObject(), "autocomplete", "", "q");
+		bodyBuilder.appendFormalLine(getSimpleName(suggestionMap) + " suggestions = " + targetSimpleName + "." + searchAnnotationValues.getSuggestMethod() + entityPlural + "(q);");
+		bodyBuilder.appendFormalLine("try {");
 		bodyBuilder.indent();
-		bodyBuilder.appendFormalLine("if (response.getResults().get(0) != null) {");
+		appendJsonBuilder(bodyBuilder, "dojo");
+		bodyBuilder.appendFormalLine("dojo.field(\"identifier\", \"id\").field(\"label\", \"label\").startArray(\"items\");");
+		bodyBuilder.appendFormalLine("for (" + getSimpleName(new JavaType(Map.class.getName())) + ".Entry<String, String> suggestion : suggestions.entrySet()) {");
 		bodyBuilder.indent();
-		bodyBuilder.appendFormalLine("Object fieldValue = response.getResults().get(0).getFieldValue(field.getName());");
-		bodyBuilder.appendFormalLine("if (fieldValue != null) {");
-		bodyBuilder.indent();
-		bodyBuilder.appendFormalLine("dojo.append(\"{label:'\").append(fieldValue).append(\" (\").append(field.getValueCount()).append(\")\").append(\"',\").append(\"id:'\").append(field.getName()).append(\"'},\");");
+		bodyBuilder.appendFormalLine("dojo.startObject().field(\"id\", suggestion.getKey()).field(\"label\", suggestion.getValue()).endObject();");
 		bodyBuilder.indentRemove();
 		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.appendFormalLine("dojo.endArray().endObject().close();");
 		bodyBuilder.indentRemove();
-		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.appendFormalLine("} catch (" + getSimpleName(new JavaType("java.io.IOException")) + " e) {");
+		bodyBuilder.indent();
+		bodyBuilder.appendFormalLine("throw new IllegalStateException(\"Unable to write " + targetSimpleName + " suggestions\", e);");
 		bodyBuilder.indentRemove();
 		bodyBuilder.appendFormalLine("}");
-		bodyBuilder.appendFormalLine("dojo.append(\"]}\");");
-		bodyBuilder.appendFormalLine("return dojo.toString();");
 		
-		MethodMetadataBuilder methodBuilder = new MethodMetadataBuilder(getId(), Modifier.PUBLIC, methodName, JavaType.STRING_OBJECT, paramTypes, paramNames, bodyBuilder);
+		MethodMetadataBuilder methodBuilder = new MethodMetadataBuilder(getId(), Modifier.PUBLIC, methodName, JavaType.VOID_PRIMITIVE, paramTypes, paramNames, bodyBuilder);
 		methodBuilder.setAnnotations(annotations);
 		return methodBuilder.build();
 	}
 	
+	private MethodMetadata getNotModifiedMethod() {
+		JavaSymbolName methodName = new JavaSymbolName("notModified");
+		MethodMetadata method = methodExists(methodName);
+		if (method != null) return method;
+		
+		List<AnnotatedJavaType> paramTypes = new ArrayList<AnnotatedJavaType>();
+		List<JavaSymbolName> paramNames = new ArrayList<JavaSymbolName>();
+		paramTypes.add(new AnnotatedJavaType(JavaType.STRING_OBJECT, null));
+		paramNames.add(new JavaSymbolName("etag"));
+		paramTypes.add(new AnnotatedJavaType(JavaType.STRING_OBJECT, null));
+		paramNames.add(new JavaSymbolName("ifNoneMatch"));
+		JavaType servletResponse = new JavaType("javax.servlet.http.HttpServletResponse");
+		paramTypes.add(new AnnotatedJavaType(servletResponse, null));
+		paramNames.add(new JavaSymbolName("response"));
+		
+		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
+		bodyBuilder.appendFormalLine("if (etag == null) {");
+		bodyBuilder.indent();
+		// Recent writes may not be searchable yet, the response must not be validated against them
+		bodyBuilder.appendFormalLine("response.setHeader(\"Cache-Control\", \"no-cache\");");
+		bodyBuilder.appendFormalLine("return false;");
+		bodyBuilder.indentRemove();
+		bodyBuilder.appendFormalLine("}");
+		bodyBuilder.appendFormalLine("response.setHeader(\"ETag\", etag);");
+		bodyBuilder.appendFormalLine("response.setHeader(\"Cache-Control\", \"max-age=0, must-revalidate\");");
+		bodyBuilder.appendFormalLine("response.setHeader(\"Vary\", \"Accept\");");
+		bodyBuilder.appendFormalLine("if (ifNoneMatch == null || !ifNoneMatch.contains(etag)) return false;");
+		bodyBuilder.appendFormalLine("response.setStatus(" + getSimpleName(servletResponse) + ".SC_NOT_MODIFIED);");
+		bodyBuilder.appendFormalLine("return true;");
+		
+		return new MethodMetadataBuilder(getId(), Modifier.PRIVATE, methodName, JavaType.BOOLEAN_PRIMITIVE, paramTypes, paramNames, bodyBuilder).build();
+	}
+	
+	private void appendNotModified(InvocableMemberBodyBuilder bodyBuilder, ElasticsearchAnnotationValues searchAnnotationValues, JavaType targetObject, String variant, String returnValue, String request) {
+		// Validated against the write generation of the entity, a matching client is answered without searching,
+		// handlers taking the response and returning null are not rendered
+		bodyBuilder.appendFormalLine("String etag = " + getSimpleName(getRuntimeType(ElasticsearchOperations.ES_WRITE_GENERATIONS_SIMPLE_TYPE)) + ".etag(\"" + targetObject.getSimpleTypeName().toLowerCase() + "\", \"" + searchAnnotationValues.getRefreshInterval() + "\", \"" + variant + "\", " + request + ");");
+		bodyBuilder.appendFormalLine("if (notModified(etag, ifNoneMatch, response)) return" + (returnValue.length() > 0 ? " " + returnValue : "") + ";");
+	}
+	
+	private List<AnnotationMetadata> getIfNoneMatchAnnotation() {
+		List<AnnotationAttributeValue<?>> attributeValue = new ArrayList<AnnotationAttributeValue<?>>();
+		attributeValue.add(new BooleanAttributeValue(new JavaSymbolName("required"), false));
+		attributeValue.add(new StringAttributeValue(new JavaSymbolName("value"), "If-None-Match"));
+		List<AnnotationMetadata> paramAnnotations = new ArrayList<AnnotationMetadata>();
+		paramAnnotations.add(new AnnotationMetadataBuilder(new JavaType("org.springframework.web.bind.annotation.RequestHeader"), attributeValue).build());
+		return paramAnnotations;
+	}
+	
+	private List<AnnotatedJavaType> getSearchParamTypes() {
+		List<AnnotatedJavaType> paramTypes = new ArrayList<AnnotatedJavaType>();
+		paramTypes.add(new AnnotatedJavaType(new JavaType("String"), getRequestParamAnnotation("q", false)));
+		paramTypes.add(new AnnotatedJavaType(new JavaType(JavaType.STRING_OBJECT.getFullyQualifiedTypeName(), 1, DataType.TYPE, null, null), getRequestParamAnnotation("fq", false)));
+		paramTypes.add(new AnnotatedJavaType(new JavaType("Integer"), getRequestParamAnnotation("page", false)));
+		paramTypes.add(new AnnotatedJavaType(new JavaType("Integer"), getRequestParamAnnotation("size", false)));
+		return paramTypes;
+	}
+	
+	private List<JavaSymbolName> getSearchParamNames() {
+		List<JavaSymbolName> paramNames = new ArrayList<JavaSymbolName>();
+		paramNames.add(new JavaSymbolName("q"));
+		paramNames.add(new JavaSymbolName("facetQuery"));
+		paramNames.add(new JavaSymbolName("page"));
+		paramNames.add(new JavaSymbolName("size"));
+		return paramNames;
+	}
+	
+	private JavaSymbolName getSearchRequestMethodName(ElasticsearchWebSearchAnnotationValues elasticsearchWebSearchAnnotationValues) {
+		return new JavaSymbolName(elasticsearchWebSearchAnnotationValues.getSearchMethod() + "Request");
+	}
+	
+	private void appendJsonBuilder(InvocableMemberBodyBuilder bodyBuilder, String builderName) {
+		// The generator writes straight to the servlet output stream, closing the builder flushes it
+		bodyBuilder.appendFormalLine("response.setContentType(\"application/json;charset=UTF-8\");");
+		bodyBuilder.appendFormalLine(getSimpleName(new JavaType("org.elasticsearch.common.xcontent.XContentBuilder")) + " " + builderName + " = " + getSimpleName(new JavaType("org.elasticsearch.common.xcontent.XContentFactory")) + ".jsonBuilder(response.getOutputStream()).startObject();");
+	}
+	
 	private List<AnnotationMetadata> getRequestParamAnnotation(String paramName, boolean required) {
 		List<AnnotationAttributeValue<?>> attributeValue = new ArrayList<AnnotationAttributeValue<?>>();
 		if (!required) {
@@ -178,6 +441,22 @@ public class ElasticsearchWebSearchMetadata extends AbstractItdTypeDetailsProvid
 		return paramAnnotations;
 	}
 	
+	private String toStringArrayLiteral(String[] values) {
+		StringBuilder literal = new StringBuilder();
+		for (String value : values) {
+			literal.append(literal.length() == 0 ? "" : ", ").append("\"").append(value).append("\"");
+		}
+		return literal.toString();
+	}
+	
+	private JavaType getRuntimeType(String simpleTypeName) {
+		return new JavaType(ElasticsearchWebSearchMetadata.class.getPackage().getName() + "." + simpleTypeName);
+	}
+	
+	private String getSimpleName(JavaType type) {
+		return type.getNameIncludingTypeParameters(false, builder.getImportRegistrationResolver());
+	}
+	
 	private MethodMetadata methodExists(JavaSymbolName methodName) {
 		// We have no access to method parameter information, so we scan by name alone and treat any match as authoritative
 		// We do not scan the superclass, as the caller is expected to know we'll only scan the current class
@@ -60,7 +60,7 @@ public final class ElasticsearchWebSearchMetadataProvider extends AbstractItdMet
 		Assert.notNull(esMetadata, "Could not determine ElasticsearchMetadata for type '" + targetObject.getFullyQualifiedTypeName() + "'");
 
 		// Otherwise go off and create the to String metadata
-		return new ElasticsearchWebSearchMetadata(metadataIdentificationString, aspectName, governorPhysicalTypeMetadata, annotationValues, webScaffoldMetadata.getAnnotationValues(), esMetadata.getAnnotationValues());
+		return new ElasticsearchWebSearchMetadata(metadataIdentificationString, aspectName, governorPhysicalTypeMetadata, annotationValues, webScaffoldMetadata.getAnnotationValues(), esMetadata.getAnnotationValues(), esMetadata.getPlural(), esMetadata.getResultFields());
 	}
 	
 	public String getItdUniquenessFilenameSuffix() {
@@ -61,5 +61,240 @@ public @interface RooElasticsearchSearchable {
 	 * @return the name of the "deleteIndex" method to generate (defaults to "deleteIndex"; mandatory)
 	 */
 	String deleteIndexMethod() default "deleteIndex";
+	
+	/**
+	 * Specify the maximum number of index actions sent in a single bulk request by the generated "index" 
+	 * methods. Larger collections are split into several bulk requests.
+	 * 
+	 * @return the maximum number of actions per bulk request (defaults to 1000)
+	 */
+	int bulkMaxActions() default 1000;
+	
+	/**
+	 * Specify the maximum size (in bytes of document source) of a single bulk request sent by the generated 
+	 * "index" methods. A bulk request is sent as soon as the next document would exceed this limit.
+	 * 
+	 * @return the maximum size of a bulk request in bytes (defaults to 5242880, 5MB)
+	 */
+	int bulkMaxBytes() default 5242880;
+	
+	/**
+	 * Specify name of the "reindexAll" method to generate. Use a value of "" to avoid the generation 
+	 * of the reindexAll method. The method name will be concatenated by the plural of the entity type 
+	 * (ie: reindexAllOwners)
+	 * 
+	 * @return the name of the "reindexAll" method to generate (defaults to "reindexAll"; mandatory)
+	 */
+	String reindexMethod() default "reindexAll";
+	
+	/**
+	 * Specify the number of entities loaded from the database per page by the generated "reindexAll" method.
+	 * 
+	 * @return the number of entities per page (defaults to 1000)
+	 */
+	int reindexPageSize() default 1000;
+	
+	/**
+	 * Specify the fields to write to the index. When empty, all fields holding a simple value (strings, 
+	 * numbers, booleans, dates and enums) are indexed.
+	 * 
+	 * @return the names of the fields to index (defaults to all simple fields)
+	 */
+	String[] includeFields() default {};
+	
+	/**
+	 * Specify fields which should not be written to the index, such as large text fields nobody searches on.
+	 * 
+	 * @return the names of the fields to leave out of the index (defaults to none)
+	 */
+	String[] excludeFields() default {};
+	
+	/**
+	 * Specify indexed fields which should also be stored separately from the document source, so they can be 
+	 * retrieved on their own.
+	 * 
+	 * @return the names of the fields to store (defaults to none)
+	 */
+	String[] storedFields() default {};
+	
+	/**
+	 * Specify indexed fields which are only kept in the document source. These fields are returned with search 
+	 * hits but cannot be searched on.
+	 * 
+	 * @return the names of the fields which are not searchable (defaults to none)
+	 */
+	String[] sourceOnlyFields() default {};
+	
+	/**
+	 * Specify whether search hits whose entity no longer exists in the database are left out of the entities 
+	 * returned by the typed search methods. When false, a null entry takes the place of the missing entity so 
+	 * results stay aligned with the search hits.
+	 * 
+	 * @return true to skip missing entities (defaults to true)
+	 */
+	boolean skipMissingEntities() default true;
+	
+	/**
+	 * Specify whether responses of the generated search methods are cached in the JVM. Cached responses of a type 
+	 * are dropped as soon as the generated index or delete methods have written to it (see es.properties for the 
+	 * size and time to live of the cache).
+	 * 
+	 * @return true to cache search responses (defaults to false)
+	 */
+	boolean cacheSearches() default false;
+	
+	/**
+	 * Specify whether identical searches running at the same time are sent to the cluster once and share the 
+	 * response. Applies to the same search methods as {@link #cacheSearches()}.
+	 * 
+	 * @return true to coalesce concurrent identical searches (defaults to false)
+	 */
+	boolean coalesceSearches() default false;
+	
+	/**
+	 * Specify name of the "stream" method to generate. Use a value of "" to avoid the generation 
+	 * of the stream method. The method name will be concatenated by the plural of the entity type 
+	 * (ie: streamOwners)
+	 * 
+	 * @return the name of the "stream" method to generate (defaults to "stream"; mandatory)
+	 */
+	String streamMethod() default "stream";
+	
+	/**
+	 * Specify the number of hits fetched per shard in each scroll batch by the generated "stream" method.
+	 * 
+	 * @return the number of hits per shard and batch (defaults to 100)
+	 */
+	int scrollBatchSize() default 100;
+	
+	/**
+	 * Specify how long the cluster keeps the scroll of the generated "stream" method alive between two batches, 
+	 * in Elasticsearch time value notation.
+	 * 
+	 * @return the scroll keep alive (defaults to "1m")
+	 */
+	String scrollKeepAlive() default "1m";
+	
+	/**
+	 * Specify name of the "count" method to generate. Use a value of "" to avoid the generation 
+	 * of the count method. The method name will be concatenated by the plural of the entity type 
+	 * (ie: countOwners)
+	 * 
+	 * @return the name of the "count" method to generate (defaults to "count"; mandatory)
+	 */
+	String countMethod() default "count";
+	
+	/**
+	 * Specify name of the "exists" method to generate. Use a value of "" to avoid the generation 
+	 * of the exists method. The method name will be concatenated by the simple name of the entity type 
+	 * (ie: existsOwner)
+	 * 
+	 * @return the name of the "exists" method to generate (defaults to "exists"; mandatory)
+	 */
+	String existsMethod() default "exists";
+	
+	/**
+	 * Specify the property whose value is used as the routing key of the indexed documents. Index and delete 
+	 * requests are routed by it and routed overloads of the search and count methods are generated, so 
+	 * reads and writes for one value hit a single shard. Use a value of "" to route by identifier.
+	 * 
+	 * @return the name of the routing property (defaults to ""; optional)
+	 */
+	String routingField() default "";
+	
+	/**
+	 * Specify how documents are spread over indices: "app" stores every entity in the single index named by 
+	 * {@link #indexName()}, "type" stores each entity in its own index, "daily" and "monthly" store documents 
+	 * in one index per day or month of {@link #timestampField()}, all of them behind an alias named by 
+	 * {@link #indexName()}.
+	 * 
+	 * @return the index naming strategy (defaults to "type")
+	 */
+	String indexStrategy() default "type";
+	
+	/**
+	 * Specify the name of the index, or of the alias grouping the indices of a time based strategy. Use a value 
+	 * of "" to name it after the entity type (ie: owner).
+	 * 
+	 * @return the index or alias name (defaults to ""; mandatory for the "app" strategy)
+	 */
+	String indexName() default "";
+	
+	/**
+	 * Specify the date or calendar property deciding the index of a document under a time based strategy. 
+	 * Searches restricted to a range of this property only visit the indices overlapping it.
+	 * <p>
+	 * The property should not change once the entity has been indexed: the document is written to the index of 
+	 * the current value and the copy in the index of the previous value is left behind, to be found by searches 
+	 * on the alias. A null value writes to the index of the current day or month. Deletes do not depend on the 
+	 * property, they run a delete by query on the alias and so reach the document in whichever index it is.
+	 * 
+	 * @return the name of the timestamp property (defaults to ""; mandatory for the "daily" and "monthly" strategies)
+	 */
+	String timestampField() default "";
+	
+	/**
+	 * Specify the fields used for faceting and filtering. They are mapped as single not analyzed terms and 
+	 * left out of the _all field.
+	 * 
+	 * @return the names of the facet fields (defaults to none)
+	 */
+	String[] facetFields() default {};
+	
+	/**
+	 * Specify the number of primary shards of the index, only applied when the index is created.
+	 * 
+	 * @return the number of shards (defaults to 5)
+	 */
+	int numberOfShards() default 5;
+	
+	/**
+	 * Specify the number of replicas of each shard of the index, only applied when the index is created.
+	 * 
+	 * @return the number of replicas (defaults to 1)
+	 */
+	int numberOfReplicas() default 1;
+	
+	/**
+	 * Specify how often the index is refreshed to make recent writes searchable, only applied when the index 
+	 * is created. Use a value of "-1" to only refresh on demand.
+	 * 
+	 * @return the refresh interval of the index (defaults to "1s")
+	 */
+	String refreshInterval() default "1s";
+	
+	/**
+	 * Specify whether the reindex method disables refresh and replicas of the index while it runs. The original 
+	 * settings are restored when it completes or fails.
+	 * 
+	 * @return true to reindex in bulk load mode (defaults to true)
+	 */
+	boolean bulkLoadReindex() default true;
+	
+	/**
+	 * Specify whether the segments of the index are merged once the reindex method has completed.
+	 * 
+	 * @return true to optimize the index after reindexing (defaults to false)
+	 */
+	boolean optimizeAfterReindex() default false;
+	
+	/**
+	 * Specify name of the "suggest" method to generate, which completes a prefix typed by a user from the 
+	 * {@link #suggestFields()}. Use a value of "" to avoid the generation of the suggest method. The method name 
+	 * will be concatenated by the plural of the entity type (ie: suggestOwners)
+	 * 
+	 * @return the name of the "suggest" method to generate (defaults to "suggest"; mandatory)
+	 */
+	String suggestMethod() default "suggest";
+	
+	/**
+	 * Specify the fields completed by the suggest method. Their values are copied into a single suggest field 
+	 * indexed by edge n-grams, so a prefix is matched by a plain term lookup. The fields must be indexed. Without 
+	 * suggest fields the suggest method runs a phrase prefix query on the _all field and labels suggestions with 
+	 * the result fields.
+	 * 
+	 * @return the names of the suggest fields (defaults to none)
+	 */
+	String[] suggestFields() default {};
 }
 
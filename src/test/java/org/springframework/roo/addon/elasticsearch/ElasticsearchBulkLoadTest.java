@@ -0,0 +1,160 @@
+package org.springframework.roo.addon.elasticsearch;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.elasticsearch.action.ListenableActionFuture;
+import org.elasticsearch.action.admin.cluster.state.ClusterStateResponse;
+import org.elasticsearch.action.admin.indices.settings.UpdateSettingsResponse;
+import org.elasticsearch.client.AdminClient;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.client.ClusterAdminClient;
+import org.elasticsearch.client.IndicesAdminClient;
+import org.elasticsearch.client.action.admin.cluster.state.ClusterStateRequestBuilder;
+import org.elasticsearch.client.action.admin.indices.settings.UpdateSettingsRequestBuilder;
+import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.cluster.metadata.MetaData;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.Index;
+import org.elasticsearch.indices.IndexMissingException;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+/**
+ * Unit tests of the ElasticsearchBulkLoad runtime template.
+ *
+ * @since 1.1
+ *
+ */
+public class ElasticsearchBulkLoadTest {
+
+	private Client client;
+
+	private IndicesAdminClient indices;
+
+	private MetaData metaData;
+
+	@Before
+	@SuppressWarnings("unchecked")
+	public void setUp() {
+		client = mock(Client.class);
+		AdminClient admin = mock(AdminClient.class);
+		when(client.admin()).thenReturn(admin);
+		indices = mock(IndicesAdminClient.class);
+		when(admin.indices()).thenReturn(indices);
+
+		ClusterAdminClient cluster = mock(ClusterAdminClient.class);
+		when(admin.cluster()).thenReturn(cluster);
+		ClusterStateRequestBuilder stateBuilder = mock(ClusterStateRequestBuilder.class);
+		when(cluster.prepareState()).thenReturn(stateBuilder);
+		ListenableActionFuture<ClusterStateResponse> stateFuture = mock(ListenableActionFuture.class);
+		when(stateBuilder.execute()).thenReturn(stateFuture);
+		ClusterStateResponse stateResponse = mock(ClusterStateResponse.class);
+		when(stateFuture.actionGet()).thenReturn(stateResponse);
+		ClusterState state = mock(ClusterState.class);
+		when(stateResponse.getState()).thenReturn(state);
+		metaData = mock(MetaData.class);
+		when(state.metaData()).thenReturn(metaData);
+	}
+
+	@Test
+	public void testSettingsAreRelaxedAndRestored() {
+		UpdateSettingsRequestBuilder updateBuilder = index("restored", "5s", 2);
+
+		ElasticsearchBulkLoad load = ElasticsearchBulkLoad.begin(client, "restored");
+		assertSettings(updateBuilder, "-1", "0");
+
+		load.end();
+		assertSettings(updateBuilder, "-1", "0", "5s", "2");
+
+		// Ending again restores nothing
+		load.end();
+		verify(updateBuilder, times(2)).execute();
+	}
+
+	@Test
+	public void testSettingsAreRestoredWhenLastLoadEnds() {
+		UpdateSettingsRequestBuilder updateBuilder = index("shared", "5s", 2);
+
+		ElasticsearchBulkLoad first = ElasticsearchBulkLoad.begin(client, "shared");
+		ElasticsearchBulkLoad second = ElasticsearchBulkLoad.begin(client, "shared");
+		first.end();
+		first.end();
+		assertSettings(updateBuilder, "-1", "0");
+
+		// The settings recorded by the first load, not the relaxed ones in place when the second began
+		second.end();
+		assertSettings(updateBuilder, "-1", "0", "5s", "2");
+	}
+
+	@Test
+	public void testDefaultRefreshIntervalIsRestored() {
+		UpdateSettingsRequestBuilder updateBuilder = index("default", null, 1);
+
+		ElasticsearchBulkLoad.begin(client, "default").end();
+		assertSettings(updateBuilder, "-1", "0", "1s", "1");
+	}
+
+	@Test
+	public void testFailedRestoreIsNotThrown() {
+		UpdateSettingsRequestBuilder updateBuilder = index("unrestored", "5s", 2);
+		when(updateBuilder.execute().actionGet()).thenReturn(null).thenThrow(new IllegalStateException("Node closed"));
+
+		ElasticsearchBulkLoad.begin(client, "unrestored").end();
+
+		// Nothing is left recorded, the next load relaxes the settings again
+		ElasticsearchBulkLoad.begin(client, "unrestored");
+		assertSettings(updateBuilder, "-1", "0", "5s", "2", "-1", "0");
+	}
+
+	@Test
+	public void testMissingIndexIsLeftAlone() {
+		when(metaData.concreteIndices(new String[] { "missing" })).thenThrow(new IndexMissingException(new Index("missing")));
+
+		ElasticsearchBulkLoad load = ElasticsearchBulkLoad.begin(client, "missing");
+		load.end();
+		load.optimize(1);
+		verifyZeroInteractions(indices);
+	}
+
+	@SuppressWarnings("unchecked")
+	private UpdateSettingsRequestBuilder index(String index, String refreshInterval, int numberOfReplicas) {
+		when(metaData.concreteIndices(new String[] { index })).thenReturn(new String[] { index });
+		ImmutableSettings.Builder settings = ImmutableSettings.settingsBuilder();
+		if (refreshInterval != null) {
+			settings.put("index.refresh_interval", refreshInterval);
+		}
+		IndexMetaData indexMetaData = mock(IndexMetaData.class);
+		when(indexMetaData.settings()).thenReturn(settings.build());
+		when(indexMetaData.numberOfReplicas()).thenReturn(numberOfReplicas);
+		when(metaData.index(index)).thenReturn(indexMetaData);
+
+		UpdateSettingsRequestBuilder updateBuilder = mock(UpdateSettingsRequestBuilder.class);
+		when(updateBuilder.setSettings(any(Settings.class))).thenReturn(updateBuilder);
+		ListenableActionFuture<UpdateSettingsResponse> updateFuture = mock(ListenableActionFuture.class);
+		when(updateBuilder.execute()).thenReturn(updateFuture);
+		when(indices.prepareUpdateSettings(index)).thenReturn(updateBuilder);
+		return updateBuilder;
+	}
+
+	// Every settings update sent so far, as pairs of refresh interval and number of replicas
+	private void assertSettings(UpdateSettingsRequestBuilder updateBuilder, String... expected) {
+		ArgumentCaptor<Settings> captor = ArgumentCaptor.forClass(Settings.class);
+		verify(updateBuilder, times(expected.length / 2)).setSettings(captor.capture());
+		List<Settings> updates = captor.getAllValues();
+		for (int i = 0; i < updates.size(); i++) {
+			assertEquals(expected[2 * i], updates.get(i).get("index.refresh_interval"));
+			assertEquals(expected[2 * i + 1], updates.get(i).get("index.number_of_replicas"));
+		}
+	}
+}
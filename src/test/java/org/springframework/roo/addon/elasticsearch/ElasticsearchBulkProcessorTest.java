@@ -0,0 +1,346 @@
+package org.springframework.roo.addon.elasticsearch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.elasticsearch.action.ActionFuture;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.delete.DeleteRequest;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.client.Client;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+/**
+ * Unit tests of the ElasticsearchBulkProcessor runtime template.
+ *
+ * @since 1.1
+ *
+ */
+public class ElasticsearchBulkProcessorTest {
+
+	private static final String REJECTED = "EsRejectedExecutionException[rejected execution of [bulk]]";
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private ElasticsearchBulkProcessor processor;
+
+	private File deadLetterFile;
+
+	// Bulk requests sent to the client and their listeners, answered by the tests
+	private final List<BulkRequest> requests = new ArrayList<BulkRequest>();
+
+	private final List<ActionListener<BulkResponse>> listeners = new ArrayList<ActionListener<BulkResponse>>();
+
+	private int answered;
+
+	@Before
+	@SuppressWarnings("unchecked")
+	public void setUp() {
+		Client client = mock(Client.class);
+		doAnswer(new Answer<Void>() {
+			public Void answer(InvocationOnMock invocation) {
+				synchronized (requests) {
+					requests.add((BulkRequest) invocation.getArguments()[0]);
+					listeners.add((ActionListener<BulkResponse>) invocation.getArguments()[1]);
+				}
+				return null;
+			}
+		}).when(client).bulk(any(BulkRequest.class), any(ActionListener.class));
+		deadLetterFile = new File(folder.getRoot(), "dead-letters.log");
+		processor = new ElasticsearchBulkProcessor();
+		processor.setClient(client);
+		processor.setFlushInterval(0);
+		processor.setRetryBackoff(1);
+		processor.setDeadLetterFile(deadLetterFile);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		// Nothing may be left in flight, destroy would wait for it
+		respondToAll();
+		processor.flush();
+		respondToAll();
+		processor.destroy();
+	}
+
+	@Test
+	public void testSubmittedRequestCompletesWithResult() throws Exception {
+		processor.afterPropertiesSet();
+		ActionFuture<ElasticsearchBulkResult> future = processor.submit(bulk(index("1"), index("2")));
+		assertEquals(1, sent());
+		assertFalse(future.isDone());
+
+		respond(succeeded());
+		ElasticsearchBulkResult result = future.actionGet(5000);
+		assertEquals(2, result.getActions());
+		assertEquals(2, result.getSucceeded());
+		assertFalse(result.hasFailures());
+	}
+
+	@Test
+	public void testTransientFailureIsRetried() throws Exception {
+		processor.afterPropertiesSet();
+		ActionFuture<ElasticsearchBulkResult> future = processor.submit(bulk(index("1"), index("2")));
+		respond(failed(REJECTED, 1));
+
+		// Only the failed item is sent again, and the result waits for it
+		awaitSent(2);
+		assertEquals(1, requests.get(1).numberOfActions());
+		assertFalse(future.isDone());
+		respond(succeeded());
+
+		ElasticsearchBulkResult result = future.actionGet(5000);
+		assertEquals(2, result.getSucceeded());
+		assertEquals(1, result.getRetried());
+		assertEquals(0, result.getDeadLettered());
+		assertEquals(1, processor.getRetriedActions());
+		assertFalse(deadLetterFile.exists());
+	}
+
+	@Test
+	public void testItemIsDeadLetteredAfterMaxRetries() throws Exception {
+		processor.setMaxRetries(1);
+		processor.afterPropertiesSet();
+		ActionFuture<ElasticsearchBulkResult> future = processor.submit(bulk(index("1")));
+		respond(failed(REJECTED, 0));
+		awaitSent(2);
+		respond(failed(REJECTED, 0));
+
+		ElasticsearchBulkResult result = future.actionGet(5000);
+		assertEquals(0, result.getSucceeded());
+		assertEquals(1, result.getRetried());
+		assertEquals(1, result.getDeadLettered());
+		assertEquals(2, sent());
+
+		// Waits for the dead letter written on the flush thread
+		processor.destroy();
+		assertEquals(Arrays.asList("index\tpeople\tperson\t1\t\t0\t{\"name\":\"joe\"}"), readLines(deadLetterFile));
+	}
+
+	@Test
+	public void testPermanentFailureIsNotRetried() throws Exception {
+		processor.afterPropertiesSet();
+		ActionFuture<ElasticsearchBulkResult> future = processor.submit(bulk(index("1")));
+		respond(failed("MapperParsingException[failed to parse [age]]", 0));
+
+		ElasticsearchBulkResult result = future.actionGet(5000);
+		assertEquals(0, result.getRetried());
+		assertEquals(1, result.getDeadLettered());
+		assertEquals(1, sent());
+	}
+
+	@Test
+	public void testVersionConflictIsNeitherRetriedNorDeadLettered() throws Exception {
+		processor.afterPropertiesSet();
+		ActionFuture<ElasticsearchBulkResult> future = processor.submit(bulk(index("1"), index("2")));
+		respond(failed("VersionConflictEngineException[[people][0] [person][1]: version conflict]", 0));
+
+		ElasticsearchBulkResult result = future.actionGet(5000);
+		assertEquals(1, result.getSucceeded());
+		assertEquals(1, result.getVersionConflicts());
+		assertEquals(0, result.getDeadLettered());
+		assertEquals(1, sent());
+	}
+
+	@Test
+	public void testFullQueueRejectsWithoutBlocking() throws Exception {
+		processor.setQueueCapacity(2);
+		processor.setBlockWhenFull(false);
+		processor.afterPropertiesSet();
+		processor.add(index("1"));
+		processor.add(index("2"));
+		try {
+			processor.add(index("3"));
+			fail("Queue should have been full");
+		} catch (RejectedExecutionException expected) {
+		}
+
+		// Capacity is released once the actions have been executed
+		processor.flush();
+		respond(succeeded());
+		processor.add(index("3"));
+	}
+
+	@Test
+	public void testSubmitRejectsWhenAllRequestsAreInFlight() throws Exception {
+		processor.setQueueCapacity(2);
+		processor.setConcurrentRequests(1);
+		processor.setBlockWhenFull(false);
+		processor.afterPropertiesSet();
+		processor.submit(bulk(index("1")));
+		try {
+			processor.submit(bulk(index("2")));
+			fail("All requests should have been in flight");
+		} catch (RejectedExecutionException expected) {
+		}
+		assertEquals(1, sent());
+
+		// The rejected request gave its queue capacity back
+		processor.add(index("2"));
+		try {
+			processor.add(index("3"));
+			fail("Queue should have been full");
+		} catch (RejectedExecutionException expected) {
+		}
+	}
+
+	@Test
+	public void testReplaySendsDeadLettersOfTypeAndKeepsOthers() throws Exception {
+		processor.afterPropertiesSet();
+		String other = "index\tpeople\tpet\t3\t\t0\t{\"name\":\"rex\"}";
+		writeLines(deadLetterFile, "index\tpeople\tperson\t1\t\t0\t{\"name\":\"joe\"}", other, "delete\tpeople\tperson\t2\t\t0\t");
+
+		assertEquals(2, processor.replayDeadLetters(null, "person"));
+		assertEquals(1, sent());
+		BulkRequest replayed = requests.get(0);
+		assertEquals(2, replayed.numberOfActions());
+		assertEquals("1", ((IndexRequest) replayed.requests().get(0)).id());
+		assertEquals("2", ((DeleteRequest) replayed.requests().get(1)).id());
+		assertEquals(Arrays.asList(other), readLines(deadLetterFile));
+		assertFalse(new File(deadLetterFile.getPath() + ".replay").exists());
+	}
+
+	@Test
+	public void testReplayKeepsDeadLettersRejectedByFullQueue() throws Exception {
+		processor.setQueueCapacity(1);
+		processor.setBlockWhenFull(false);
+		processor.afterPropertiesSet();
+		String other = "index\tpeople\tpet\t3\t\t0\t{\"name\":\"rex\"}";
+		String rejected = "delete\tpeople\tperson\t2\t\t0\t";
+		writeLines(deadLetterFile, "index\tpeople\tperson\t1\t\t0\t{\"name\":\"joe\"}", other, rejected);
+
+		assertEquals(1, processor.replayDeadLetters(null, "person"));
+		assertEquals(1, sent());
+		assertEquals(1, requests.get(0).numberOfActions());
+		assertEquals(Arrays.asList(other, rejected), readLines(deadLetterFile));
+		assertFalse(new File(deadLetterFile.getPath() + ".replay").exists());
+	}
+
+	@Test
+	public void testInterruptedReplayIsPickedUpAgain() throws Exception {
+		processor.afterPropertiesSet();
+		writeLines(new File(deadLetterFile.getPath() + ".replay"), "index\tpeople\tperson\t1\t\t0\t{\"name\":\"joe\"}");
+		writeLines(deadLetterFile, "delete\tpeople\tperson\t2\t\t0\t");
+
+		assertEquals(2, processor.replayDeadLetters("people", "person"));
+		assertFalse(deadLetterFile.exists());
+		assertFalse(new File(deadLetterFile.getPath() + ".replay").exists());
+	}
+
+	private IndexRequest index(String id) {
+		return new IndexRequest("people", "person", id).source("{\"name\":\"joe\"}");
+	}
+
+	private BulkRequest bulk(IndexRequest... indexRequests) {
+		BulkRequest bulkRequest = new BulkRequest();
+		for (IndexRequest indexRequest : indexRequests) {
+			bulkRequest.add(indexRequest);
+		}
+		return bulkRequest;
+	}
+
+	private BulkResponse succeeded() {
+		BulkResponse response = mock(BulkResponse.class);
+		when(response.hasFailures()).thenReturn(false);
+		return response;
+	}
+
+	private BulkResponse failed(String failureMessage, int itemId) {
+		BulkItemResponse item = mock(BulkItemResponse.class);
+		when(item.failed()).thenReturn(true);
+		when(item.failureMessage()).thenReturn(failureMessage);
+		when(item.itemId()).thenReturn(itemId);
+		when(item.opType()).thenReturn("index");
+		when(item.index()).thenReturn("people");
+		when(item.type()).thenReturn("person");
+		BulkResponse response = mock(BulkResponse.class);
+		when(response.hasFailures()).thenReturn(true);
+		when(response.items()).thenReturn(new BulkItemResponse[] { item });
+		return response;
+	}
+
+	// Answers the oldest bulk request not answered yet
+	private void respond(BulkResponse response) {
+		ActionListener<BulkResponse> listener;
+		synchronized (requests) {
+			listener = listeners.get(answered++);
+		}
+		listener.onResponse(response);
+	}
+
+	private void respondToAll() {
+		while (answered < sent()) {
+			respond(succeeded());
+		}
+	}
+
+	private int sent() {
+		synchronized (requests) {
+			return requests.size();
+		}
+	}
+
+	// Retries are sent from the flush thread
+	private void awaitSent(int count) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (sent() < count) {
+			assertTrue("Bulk request was not sent", System.currentTimeMillis() < deadline);
+			Thread.sleep(1);
+		}
+	}
+
+	private void writeLines(File file, String... lines) throws IOException {
+		Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+		try {
+			for (String line : lines) {
+				writer.write(line);
+				writer.write('\n');
+			}
+		} finally {
+			writer.close();
+		}
+	}
+
+	private List<String> readLines(File file) throws IOException {
+		List<String> lines = new ArrayList<String>();
+		BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"));
+		try {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				lines.add(line);
+			}
+		} finally {
+			reader.close();
+		}
+		return lines;
+	}
+}
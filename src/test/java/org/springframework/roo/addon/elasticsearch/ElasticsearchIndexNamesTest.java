@@ -0,0 +1,186 @@
+package org.springframework.roo.addon.elasticsearch;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Calendar;
+import java.util.Date;
+import java.util.TimeZone;
+
+import org.elasticsearch.action.ListenableActionFuture;
+import org.elasticsearch.action.admin.cluster.state.ClusterStateResponse;
+import org.elasticsearch.action.admin.indices.create.CreateIndexResponse;
+import org.elasticsearch.client.AdminClient;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.client.ClusterAdminClient;
+import org.elasticsearch.client.IndicesAdminClient;
+import org.elasticsearch.client.action.admin.cluster.state.ClusterStateRequestBuilder;
+import org.elasticsearch.client.action.admin.indices.alias.IndicesAliasesRequestBuilder;
+import org.elasticsearch.client.action.admin.indices.create.CreateIndexRequestBuilder;
+import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.metadata.MetaData;
+import org.elasticsearch.index.Index;
+import org.elasticsearch.indices.IndexAlreadyExistsException;
+import org.elasticsearch.indices.IndexMissingException;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests of the ElasticsearchIndexNames runtime template.
+ *
+ * @since 1.1
+ *
+ */
+public class ElasticsearchIndexNamesTest {
+
+	private Client client;
+
+	private IndicesAdminClient indices;
+
+	private MetaData metaData;
+
+	@Before
+	@SuppressWarnings("unchecked")
+	public void setUp() {
+		client = mock(Client.class);
+		AdminClient admin = mock(AdminClient.class);
+		when(client.admin()).thenReturn(admin);
+		indices = mock(IndicesAdminClient.class);
+		when(admin.indices()).thenReturn(indices);
+
+		ClusterAdminClient cluster = mock(ClusterAdminClient.class);
+		when(admin.cluster()).thenReturn(cluster);
+		ClusterStateRequestBuilder stateBuilder = mock(ClusterStateRequestBuilder.class);
+		when(cluster.prepareState()).thenReturn(stateBuilder);
+		ListenableActionFuture<ClusterStateResponse> stateFuture = mock(ListenableActionFuture.class);
+		when(stateBuilder.execute()).thenReturn(stateFuture);
+		ClusterStateResponse stateResponse = mock(ClusterStateResponse.class);
+		when(stateFuture.actionGet()).thenReturn(stateResponse);
+		ClusterState state = mock(ClusterState.class);
+		when(stateResponse.getState()).thenReturn(state);
+		metaData = mock(MetaData.class);
+		when(state.metaData()).thenReturn(metaData);
+	}
+
+	@Test
+	public void testBucketIsNamedAfterUtcDayOrMonth() {
+		Date timestamp = utc(2011, Calendar.SEPTEMBER, 30, 23);
+		assertEquals("events-2011.09.30", ElasticsearchIndexNames.bucket("events", ElasticsearchIndexNames.DAILY, timestamp));
+		assertEquals("events-2011.09", ElasticsearchIndexNames.bucket("events", ElasticsearchIndexNames.MONTHLY, timestamp));
+	}
+
+	@Test
+	public void testNullTimestampFallsIntoCurrentBucket() {
+		assertEquals(ElasticsearchIndexNames.bucket("events", ElasticsearchIndexNames.DAILY, new Date()), ElasticsearchIndexNames.bucket("events", ElasticsearchIndexNames.DAILY, null));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testSingleIndexStrategyHasNoBuckets() {
+		ElasticsearchIndexNames.bucket("events", ElasticsearchIndexNames.APP, new Date());
+	}
+
+	@Test
+	public void testBucketsCoverRangeAcrossMonthsAndYears() {
+		assertArrayEquals(new String[] { "events-2011.09.29", "events-2011.09.30", "events-2011.10.01" }, ElasticsearchIndexNames.buckets("events", ElasticsearchIndexNames.DAILY, utc(2011, Calendar.SEPTEMBER, 29, 12), utc(2011, Calendar.OCTOBER, 1, 0)));
+		assertArrayEquals(new String[] { "events-2011.11", "events-2011.12", "events-2012.01" }, ElasticsearchIndexNames.buckets("events", ElasticsearchIndexNames.MONTHLY, utc(2011, Calendar.NOVEMBER, 15, 0), utc(2012, Calendar.JANUARY, 2, 0)));
+	}
+
+	@Test
+	public void testOpenRangeIsTheAlias() {
+		assertArrayEquals(new String[] { "events" }, ElasticsearchIndexNames.buckets("events", ElasticsearchIndexNames.DAILY, null, new Date()));
+		assertArrayEquals(new String[] { "events" }, ElasticsearchIndexNames.buckets("events", ElasticsearchIndexNames.DAILY, new Date(), null));
+	}
+
+	@Test
+	public void testOnlyExistingBucketsAreSearched() {
+		when(metaData.hasIndex("events-2011.09.30")).thenReturn(true);
+		assertArrayEquals(new String[] { "events-2011.09.30" }, ElasticsearchIndexNames.existingBuckets(client, "events", ElasticsearchIndexNames.DAILY, utc(2011, Calendar.SEPTEMBER, 29, 0), utc(2011, Calendar.OCTOBER, 1, 0)));
+	}
+
+	@Test
+	public void testAliasIsSearchedWithoutExistingBuckets() {
+		when(metaData.concreteIndices(new String[] { "events" })).thenReturn(new String[] { "events-2011.08" });
+		assertArrayEquals(new String[] { "events" }, ElasticsearchIndexNames.existingBuckets(client, "events", ElasticsearchIndexNames.MONTHLY, utc(2011, Calendar.SEPTEMBER, 1, 0), utc(2011, Calendar.SEPTEMBER, 30, 0)));
+	}
+
+	@Test
+	public void testNothingIsSearchedWithoutAlias() {
+		when(metaData.concreteIndices(new String[] { "events" })).thenThrow(new IndexMissingException(new Index("events")));
+		assertArrayEquals(new String[0], ElasticsearchIndexNames.existingBuckets(client, "events", ElasticsearchIndexNames.MONTHLY, utc(2011, Calendar.SEPTEMBER, 1, 0), utc(2011, Calendar.SEPTEMBER, 30, 0)));
+	}
+
+	@Test
+	public void testBucketIsCreatedAndAliasedOnce() {
+		CreateIndexRequestBuilder createBuilder = prepareCreate("created-2011.09.30", null);
+		IndicesAliasesRequestBuilder aliasesBuilder = prepareAliases("created-2011.09.30", "created");
+
+		assertEquals("created-2011.09.30", ElasticsearchIndexNames.ensureBucket(client, "created", "created-2011.09.30"));
+		assertEquals("created-2011.09.30", ElasticsearchIndexNames.ensureBucket(client, "created", "created-2011.09.30"));
+		verify(createBuilder, times(1)).execute();
+		verify(aliasesBuilder, times(1)).addAlias("created-2011.09.30", "created");
+		verify(aliasesBuilder, times(1)).execute();
+	}
+
+	@Test
+	public void testExistingBucketIsStillAliased() {
+		prepareCreate("existing-2011.09.30", new IndexAlreadyExistsException(new Index("existing-2011.09.30")));
+		IndicesAliasesRequestBuilder aliasesBuilder = prepareAliases("existing-2011.09.30", "existing");
+
+		ElasticsearchIndexNames.ensureBucket(client, "existing", "existing-2011.09.30");
+		verify(aliasesBuilder).addAlias("existing-2011.09.30", "existing");
+		verify(aliasesBuilder).execute();
+	}
+
+	@Test
+	public void testFailedCreationIsTriedAgain() {
+		RuntimeException failure = new IllegalStateException("Cluster block");
+		CreateIndexRequestBuilder createBuilder = prepareCreate("failed-2011.09.30", failure);
+		IndicesAliasesRequestBuilder aliasesBuilder = prepareAliases("failed-2011.09.30", "failed");
+
+		for (int i = 0; i < 2; i++) {
+			try {
+				ElasticsearchIndexNames.ensureBucket(client, "failed", "failed-2011.09.30");
+				fail("Bucket creation should have failed");
+			} catch (IllegalStateException e) {
+				assertSame(failure, e);
+			}
+		}
+		verify(createBuilder, times(2)).execute();
+		verify(aliasesBuilder, never()).execute();
+	}
+
+	@SuppressWarnings("unchecked")
+	private CreateIndexRequestBuilder prepareCreate(String bucket, RuntimeException failure) {
+		ListenableActionFuture<CreateIndexResponse> createFuture = mock(ListenableActionFuture.class);
+		if (failure != null) {
+			when(createFuture.actionGet()).thenThrow(failure);
+		}
+		CreateIndexRequestBuilder createBuilder = mock(CreateIndexRequestBuilder.class);
+		when(createBuilder.execute()).thenReturn(createFuture);
+		when(indices.prepareCreate(bucket)).thenReturn(createBuilder);
+		return createBuilder;
+	}
+
+	@SuppressWarnings("unchecked")
+	private IndicesAliasesRequestBuilder prepareAliases(String bucket, String alias) {
+		IndicesAliasesRequestBuilder aliasesBuilder = mock(IndicesAliasesRequestBuilder.class);
+		when(aliasesBuilder.addAlias(bucket, alias)).thenReturn(aliasesBuilder);
+		when(aliasesBuilder.execute()).thenReturn(mock(ListenableActionFuture.class));
+		when(indices.prepareAliases()).thenReturn(aliasesBuilder);
+		return aliasesBuilder;
+	}
+
+	private Date utc(int year, int month, int day, int hour) {
+		Calendar calendar = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+		calendar.clear();
+		calendar.set(year, month, day, hour, 0);
+		return calendar.getTime();
+	}
+}
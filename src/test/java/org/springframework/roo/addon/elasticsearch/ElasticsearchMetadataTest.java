@@ -0,0 +1,264 @@
+package org.springframework.roo.addon.elasticsearch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.roo.classpath.PhysicalTypeCategory;
+import org.springframework.roo.classpath.PhysicalTypeIdentifier;
+import org.springframework.roo.classpath.PhysicalTypeMetadata;
+import org.springframework.roo.classpath.details.ClassOrInterfaceTypeDetails;
+import org.springframework.roo.classpath.details.FieldMetadata;
+import org.springframework.roo.classpath.details.FieldMetadataBuilder;
+import org.springframework.roo.classpath.details.MethodMetadata;
+import org.springframework.roo.classpath.details.MethodMetadataBuilder;
+import org.springframework.roo.classpath.details.annotations.AnnotatedJavaType;
+import org.springframework.roo.classpath.details.annotations.AnnotationAttributeValue;
+import org.springframework.roo.classpath.details.annotations.AnnotationMetadata;
+import org.springframework.roo.classpath.details.annotations.AnnotationMetadataBuilder;
+import org.springframework.roo.classpath.itd.InvocableMemberBodyBuilder;
+import org.springframework.roo.model.JavaSymbolName;
+import org.springframework.roo.model.JavaType;
+import org.springframework.roo.project.Path;
+
+/**
+ * Unit tests of the method bodies emitted by {@link ElasticsearchMetadata}.
+ *
+ * @since 1.1
+ *
+ */
+public class ElasticsearchMetadataTest {
+
+	private static final JavaType PERSON = new JavaType("com.example.domain.Person");
+
+	private static final String METADATA_ID = ElasticsearchMetadata.createIdentifier(PERSON, Path.SRC_MAIN_JAVA);
+
+	private static final JavaType ASPECT_NAME = new JavaType("com.example.domain.Person_Roo_Elasticsearch");
+
+	private Map<MethodMetadata, FieldMetadata> accessorDetails;
+
+	private Map<JavaSymbolName, MethodMetadata> mutatorDetails;
+
+	private FieldMetadata identifierField;
+
+	private MethodMetadata identifierAccessor;
+
+	private FieldMetadata versionField;
+
+	@Before
+	public void setUp() {
+		accessorDetails = new LinkedHashMap<MethodMetadata, FieldMetadata>();
+		mutatorDetails = new LinkedHashMap<JavaSymbolName, MethodMetadata>();
+		identifierField = addProperty("id", JavaType.LONG_PRIMITIVE, "getId", true);
+		identifierAccessor = accessorDetails.keySet().iterator().next();
+		versionField = addProperty("version", JavaType.INT_OBJECT, "getVersion", true);
+		addProperty("name", JavaType.STRING_OBJECT, "getName", true);
+		addProperty("active", JavaType.BOOLEAN_PRIMITIVE, "isActive", true);
+		addProperty("createdBy", JavaType.STRING_OBJECT, "getCreatedBy", false);
+	}
+
+	@Test
+	public void testFromSourceUsesMutatorsDerivedFromFieldNames() {
+		// isActive() is restored with setActive(), the identifier, the version and createdBy (no setter) are skipped
+		assertEquals(body(
+				"Person person = new Person();",
+				"Object value;",
+				"value = source.get(\"name\");",
+				"if (value != null) person.setName(value.toString());",
+				"value = source.get(\"active\");",
+				"if (value != null) person.setActive((Boolean) value);",
+				"return person;"),
+				getBody(createMetadata(), "fromElasticsearchSource"));
+	}
+
+	@Test
+	public void testFromHitParsesBoxedPrimitiveIdentifier() {
+		assertEquals(body(
+				"Map<String, Object> source = hit.sourceAsMap();",
+				"if (source == null) {",
+				"\tsource = new HashMap<String, Object>();",
+				"\tfor (SearchHitField field : hit.getFields().values()) {",
+				"\t\tsource.put(field.getName(), field.getValue());",
+				"\t}",
+				"}",
+				"Person person = fromElasticsearchSource(source);",
+				"person.setId(Long.valueOf(hit.getId()));",
+				"return person;"),
+				getBody(createMetadata(), "fromElasticsearchHit"));
+	}
+
+	@Test
+	public void testHitsAreLookedUpByBoxedPrimitiveIdentifier() {
+		assertEquals(body(
+				"List<Long> ids = new ArrayList<Long>(hits.getHits().length);",
+				"for (SearchHit hit : hits.getHits()) {",
+				"\tids.add(Long.valueOf(hit.getId()));",
+				"}",
+				"List<Person> persons = new ArrayList<Person>(ids.size());",
+				"if (ids.isEmpty()) return persons;",
+				"Map<Long, Person> byId = new HashMap<Long, Person>();",
+				"for (Person person : entityManager().createQuery(\"SELECT o FROM Person o WHERE o.id IN (:ids)\", Person.class).setParameter(\"ids\", ids).getResultList()) {",
+				"\tbyId.put(person.getId(), person);",
+				"}",
+				"for (Long id : ids) {",
+				"\tPerson person = byId.get(id);",
+				"\tif (person != null) persons.add(person);",
+				"}",
+				"return persons;"),
+				getBody(createMetadata(), "findPersonsForHits"));
+	}
+
+	@Test
+	public void testIndexEntitiesReturnsBulkResultFutures() {
+		assertEquals(body(
+				"List<ActionFuture<ElasticsearchBulkResult>> responses = new ArrayList<ActionFuture<ElasticsearchBulkResult>>();",
+				"ElasticsearchBulkProcessor bulkProcessor = esBulkProcessor();",
+				"BulkRequest bulkRequest = new BulkRequest();",
+				"long bulkBytes = 0;",
+				"for (Person person : persons) {",
+				"\tIndexRequest indexRequest = indexPersonRequest(person);",
+				"\tint sourceLength = indexRequest.underlyingSourceLength();",
+				"\tif (bulkRequest.numberOfActions() >= 1000 || (bulkRequest.numberOfActions() > 0 && bulkBytes + sourceLength > 5242880)) {",
+				"\t\tresponses.add(bulkProcessor.submit(bulkRequest));",
+				"\t\tbulkRequest = new BulkRequest();",
+				"\t\tbulkBytes = 0;",
+				"\t}",
+				"\tbulkRequest.add(indexRequest);",
+				"\tbulkBytes += sourceLength;",
+				"}",
+				"if (bulkRequest.numberOfActions() > 0) responses.add(bulkProcessor.submit(bulkRequest));",
+				"return responses;"),
+				getBody(createMetadata(), "indexPersons"));
+	}
+
+	@Test
+	public void testReindexPagesOnBoxedIdentifierAndCountsSettledBulkResults() {
+		assertEquals(body(
+				"Log log = LogFactory.getLog(Person.class);",
+				"EntityManager em = entityManager();",
+				"long total = em.createQuery(\"SELECT COUNT(o) FROM Person o\", Long.class).getSingleResult();",
+				"List<ActionFuture<ElasticsearchBulkResult>> outstanding = new LinkedList<ActionFuture<ElasticsearchBulkResult>>();",
+				"long read = 0, indexed = 0, skipped = 0, failed = 0;",
+				"long start = System.currentTimeMillis(), lastReport = start;",
+				"Long lastId = null;",
+				"ElasticsearchBulkLoad bulkLoad = ElasticsearchBulkLoad.begin(esClient(), \"person\");",
+				"try {",
+				"\twhile (true) {",
+				"\t\tTypedQuery<Person> query = lastId == null",
+				"\t\t        ? em.createQuery(\"SELECT o FROM Person o ORDER BY o.id\", Person.class)",
+				"\t\t        : em.createQuery(\"SELECT o FROM Person o WHERE o.id > :lastId ORDER BY o.id\", Person.class).setParameter(\"lastId\", lastId);",
+				"\t\tList<Person> page = query.setMaxResults(1000).getResultList();",
+				"\t\tif (page.isEmpty()) break;",
+				"\t\tlastId = page.get(page.size() - 1).getId();",
+				"\t\toutstanding.addAll(indexPersons(page));",
+				"\t\tread += page.size();",
+				"\t\tem.clear();",
+				"\t\tfor (Iterator<ActionFuture<ElasticsearchBulkResult>> it = outstanding.iterator(); it.hasNext();) {",
+				"\t\t\tActionFuture<ElasticsearchBulkResult> future = it.next();",
+				"\t\t\tif (!future.isDone()) continue;",
+				"\t\t\tElasticsearchBulkResult result = future.actionGet();",
+				"\t\t\tindexed += result.getSucceeded();",
+				"\t\t\tskipped += result.getVersionConflicts();",
+				"\t\t\tfailed += result.getDeadLettered();",
+				"\t\t\tit.remove();",
+				"\t\t}",
+				"\t\tlong now = System.currentTimeMillis();",
+				"\t\tif (now - lastReport >= 10000) {",
+				"\t\t\tlog.info(\"Reindexing Persons: read \" + read + \" of \" + total + \", indexed \" + indexed + \", skipped \" + skipped + \", failed \" + failed + \" (\" + (read * 1000 / Math.max(1, now - start)) + \" docs/s)\");",
+				"\t\t\tlastReport = now;",
+				"\t\t}",
+				"\t}",
+				"\tfor (ActionFuture<ElasticsearchBulkResult> future : outstanding) {",
+				"\t\tElasticsearchBulkResult result = future.actionGet();",
+				"\t\tindexed += result.getSucceeded();",
+				"\t\tskipped += result.getVersionConflicts();",
+				"\t\tfailed += result.getDeadLettered();",
+				"\t}",
+				"\tbulkLoad.end();",
+				"\tlong took = Math.max(1, System.currentTimeMillis() - start);",
+				"\tlog.info(\"Reindexed Persons: read \" + read + \", indexed \" + indexed + \", skipped \" + skipped + \", failed \" + failed + \" in \" + took + \" ms (\" + (read * 1000 / took) + \" docs/s)\");",
+				"\treturn indexed;",
+				"} finally {",
+				"\tbulkLoad.end();",
+				"}"),
+				getBody(createMetadata(), "reindexAllPersons"));
+	}
+
+	private FieldMetadata addProperty(String fieldName, JavaType fieldType, String accessorName, boolean mutable) {
+		FieldMetadata field = new FieldMetadataBuilder(METADATA_ID, Modifier.PRIVATE, new JavaSymbolName(fieldName), fieldType, null).build();
+		MethodMetadata accessor = new MethodMetadataBuilder(METADATA_ID, Modifier.PUBLIC, new JavaSymbolName(accessorName), fieldType, new InvocableMemberBodyBuilder()).build();
+		accessorDetails.put(accessor, field);
+		if (mutable) {
+			List<JavaType> paramTypes = Arrays.asList(fieldType);
+			List<JavaSymbolName> paramNames = Arrays.asList(new JavaSymbolName(fieldName));
+			MethodMetadata mutator = new MethodMetadataBuilder(METADATA_ID, Modifier.PUBLIC, ElasticsearchMetadata.getMutatorName(field), JavaType.VOID_PRIMITIVE, AnnotatedJavaType.convertFromJavaTypes(paramTypes), paramNames, new InvocableMemberBodyBuilder()).build();
+			mutatorDetails.put(field.getFieldName(), mutator);
+		}
+		return field;
+	}
+
+	private ElasticsearchMetadata createMetadata(AnnotationAttributeValue<?>... attributes) {
+		AnnotationMetadataBuilder annotation = new AnnotationMetadataBuilder(new JavaType(RooElasticsearchSearchable.class.getName()));
+		for (AnnotationAttributeValue<?> attribute : attributes) {
+			annotation.addAttribute(attribute);
+		}
+		List<AnnotationMetadata> annotations = new ArrayList<AnnotationMetadata>();
+		annotations.add(annotation.build());
+
+		ClassOrInterfaceTypeDetails governorTypeDetails = mock(ClassOrInterfaceTypeDetails.class);
+		when(governorTypeDetails.getName()).thenReturn(PERSON);
+		when(governorTypeDetails.getDeclaredByMetadataId()).thenReturn(PhysicalTypeIdentifier.createIdentifier(PERSON, Path.SRC_MAIN_JAVA));
+		when(governorTypeDetails.getPhysicalTypeCategory()).thenReturn(PhysicalTypeCategory.CLASS);
+		when(governorTypeDetails.getModifier()).thenReturn(Modifier.PUBLIC);
+		doReturn(annotations).when(governorTypeDetails).getAnnotations();
+		PhysicalTypeMetadata governorPhysicalTypeMetadata = mock(PhysicalTypeMetadata.class);
+		when(governorPhysicalTypeMetadata.getId()).thenReturn(PhysicalTypeIdentifier.createIdentifier(PERSON, Path.SRC_MAIN_JAVA));
+		when(governorPhysicalTypeMetadata.getMemberHoldingTypeDetails()).thenReturn(governorTypeDetails);
+
+		ElasticsearchAnnotationValues annotationValues = new ElasticsearchAnnotationValues(governorPhysicalTypeMetadata);
+		return new ElasticsearchMetadata(METADATA_ID, ASPECT_NAME, annotationValues, governorPhysicalTypeMetadata, identifierField, identifierAccessor, versionField, accessorDetails, mutatorDetails, "Persons");
+	}
+
+	/**
+	 * Builds the expected body of a generated method, the leading tabs of a line give its indentation level.
+	 */
+	private String body(String... lines) {
+		InvocableMemberBodyBuilder bodyBuilder = new InvocableMemberBodyBuilder();
+		int indentation = 0;
+		for (String line : lines) {
+			int level = 0;
+			while (line.charAt(level) == '\t') {
+				level++;
+			}
+			for (; indentation < level; indentation++) {
+				bodyBuilder.indent();
+			}
+			for (; indentation > level; indentation--) {
+				bodyBuilder.indentRemove();
+			}
+			bodyBuilder.appendFormalLine(line.substring(level));
+		}
+		return bodyBuilder.getOutput();
+	}
+
+	private String getBody(ElasticsearchMetadata metadata, String methodName) {
+		for (MethodMetadata method : metadata.getMemberHoldingTypeDetails().getDeclaredMethods()) {
+			if (method.getMethodName().getSymbolName().equals(methodName)) {
+				return method.getBody();
+			}
+		}
+		fail("No " + methodName + " method generated");
+		return null;
+	}
+}
@@ -0,0 +1,147 @@
+package org.springframework.roo.addon.elasticsearch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.ListenableActionFuture;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.client.action.search.SearchRequestBuilder;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.SearchHits;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+/**
+ * Unit tests of the ElasticsearchSearchCache runtime template.
+ *
+ * @since 1.1
+ *
+ */
+public class ElasticsearchSearchCacheTest {
+
+	private ElasticsearchSearchCache cache;
+
+	private SearchRequestBuilder searchBuilder;
+
+	private boolean failing;
+
+	@Before
+	public void setUp() {
+		cache = new ElasticsearchSearchCache();
+		searchBuilder = mock(SearchRequestBuilder.class);
+		when(searchBuilder.execute()).thenAnswer(new Answer<ListenableActionFuture<SearchResponse>>() {
+			public ListenableActionFuture<SearchResponse> answer(InvocationOnMock invocation) {
+				return completedFuture();
+			}
+		});
+	}
+
+	@Test
+	public void testRepeatedSearchIsServedFromCache() {
+		ListenableActionFuture<SearchResponse> first = cache.search(searchBuilder, "cached", "k1");
+		assertSame(first, cache.search(searchBuilder, "cached", "k1"));
+		verify(searchBuilder, times(1)).execute();
+		assertEquals(1, cache.getHits());
+		assertEquals(1, cache.getMisses());
+	}
+
+	@Test
+	public void testLeastRecentlyUsedEntryIsEvictedFirst() {
+		cache.setMaxEntries(2);
+		cache.search(searchBuilder, "lru", "k1");
+		cache.search(searchBuilder, "lru", "k2");
+		cache.search(searchBuilder, "lru", "k1");
+		cache.search(searchBuilder, "lru", "k3");
+		assertEquals(2, cache.getSize());
+		assertEquals(1, cache.getEvictions());
+		verify(searchBuilder, times(3)).execute();
+
+		// k2 was the least recently used, k1 is still cached
+		cache.search(searchBuilder, "lru", "k1");
+		verify(searchBuilder, times(3)).execute();
+		cache.search(searchBuilder, "lru", "k2");
+		verify(searchBuilder, times(4)).execute();
+	}
+
+	@Test
+	public void testEntriesAreEvictedToStayWithinMaxBytes() {
+		cache.search(searchBuilder, "bytes", "k1");
+		long entryBytes = cache.getBytes();
+		cache.setMaxBytes(2 * entryBytes + entryBytes / 2);
+		cache.search(searchBuilder, "bytes", "k2");
+		cache.search(searchBuilder, "bytes", "k3");
+		assertEquals(2, cache.getSize());
+		assertEquals(2 * entryBytes, cache.getBytes());
+		assertEquals(1, cache.getEvictions());
+		cache.search(searchBuilder, "bytes", "k1");
+		verify(searchBuilder, times(4)).execute();
+	}
+
+	@Test
+	public void testExpiredEntryIsSearchedAgain() throws InterruptedException {
+		cache.setTimeToLive(1);
+		cache.search(searchBuilder, "ttl", "k1");
+		Thread.sleep(20);
+		cache.search(searchBuilder, "ttl", "k1");
+		verify(searchBuilder, times(2)).execute();
+		assertEquals(0, cache.getHits());
+		assertEquals(1, cache.getSize());
+	}
+
+	@Test
+	public void testEntryIsNotServedAfterWrite() {
+		cache.search(searchBuilder, "written", "k1");
+		ElasticsearchWriteGenerations.advance("written");
+		cache.search(searchBuilder, "written", "k1");
+		verify(searchBuilder, times(2)).execute();
+	}
+
+	@Test
+	public void testFailuresAreNotCached() {
+		failing = true;
+		cache.search(searchBuilder, "failed", "k1");
+		cache.search(searchBuilder, "failed", "k1");
+		verify(searchBuilder, times(2)).execute();
+		assertEquals(0, cache.getSize());
+	}
+
+	@Test
+	public void testDisabledCacheExecutesEverySearch() {
+		cache.setEnabled(false);
+		cache.search(searchBuilder, "disabled", "k1");
+		cache.search(searchBuilder, "disabled", "k1");
+		verify(searchBuilder, times(2)).execute();
+		assertEquals(0, cache.getSize());
+	}
+
+	// A future whose listeners are notified as soon as they are added
+	@SuppressWarnings("unchecked")
+	private ListenableActionFuture<SearchResponse> completedFuture() {
+		SearchHits hits = mock(SearchHits.class);
+		when(hits.getHits()).thenReturn(new SearchHit[0]);
+		final SearchResponse response = mock(SearchResponse.class);
+		when(response.getHits()).thenReturn(hits);
+		ListenableActionFuture<SearchResponse> future = mock(ListenableActionFuture.class);
+		doAnswer(new Answer<Void>() {
+			public Void answer(InvocationOnMock invocation) {
+				ActionListener<SearchResponse> listener = (ActionListener<SearchResponse>) invocation.getArguments()[0];
+				if (failing) {
+					listener.onFailure(new IllegalStateException("Search failed"));
+				} else {
+					listener.onResponse(response);
+				}
+				return null;
+			}
+		}).when(future).addListener(any(ActionListener.class));
+		return future;
+	}
+}
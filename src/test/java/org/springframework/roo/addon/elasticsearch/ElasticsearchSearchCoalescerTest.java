@@ -0,0 +1,140 @@
+package org.springframework.roo.addon.elasticsearch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.ListenableActionFuture;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.client.action.search.SearchRequestBuilder;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+/**
+ * Unit tests of the ElasticsearchSearchCoalescer runtime template.
+ *
+ * @since 1.1
+ *
+ */
+public class ElasticsearchSearchCoalescerTest {
+
+	private ExecutorService executor;
+
+	@Before
+	public void setUp() {
+		executor = Executors.newFixedThreadPool(2);
+	}
+
+	@After
+	public void tearDown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testIdenticalSearchJoinsSearchInFlight() {
+		final ActionListener<SearchResponse>[] listener = new ActionListener[1];
+		ListenableActionFuture<SearchResponse> future = mock(ListenableActionFuture.class);
+		doAnswer(new Answer<Void>() {
+			public Void answer(InvocationOnMock invocation) {
+				listener[0] = (ActionListener<SearchResponse>) invocation.getArguments()[0];
+				return null;
+			}
+		}).when(future).addListener(any(ActionListener.class));
+		SearchRequestBuilder searchBuilder = mock(SearchRequestBuilder.class);
+		when(searchBuilder.execute()).thenReturn(future);
+
+		assertSame(future, ElasticsearchSearchCoalescer.execute(searchBuilder, "joined", "k1"));
+		assertSame(future, ElasticsearchSearchCoalescer.execute(searchBuilder, "joined", "k1"));
+		verify(searchBuilder, times(1)).execute();
+
+		// Nothing is kept once the response has been received
+		listener[0].onResponse(mock(SearchResponse.class));
+		ElasticsearchSearchCoalescer.execute(searchBuilder, "joined", "k1");
+		verify(searchBuilder, times(2)).execute();
+	}
+
+	@Test
+	public void testFailedExecuteReleasesWaitingSearches() throws Exception {
+		final RuntimeException failure = new IllegalStateException("Node closed");
+		final CountDownLatch executing = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		final SearchRequestBuilder leaderBuilder = mock(SearchRequestBuilder.class);
+		when(leaderBuilder.execute()).thenAnswer(new Answer<ListenableActionFuture<SearchResponse>>() {
+			public ListenableActionFuture<SearchResponse> answer(InvocationOnMock invocation) throws InterruptedException {
+				executing.countDown();
+				release.await();
+				throw failure;
+			}
+		});
+		final SearchRequestBuilder followerBuilder = mock(SearchRequestBuilder.class);
+
+		Future<ListenableActionFuture<SearchResponse>> leader = executor.submit(execute(leaderBuilder, "failed", "k1"));
+		assertTrue(executing.await(5, TimeUnit.SECONDS));
+		long coalesced = ElasticsearchSearchCoalescer.getCoalesced();
+		Future<ListenableActionFuture<SearchResponse>> follower = executor.submit(execute(followerBuilder, "failed", "k1"));
+		long deadline = System.currentTimeMillis() + 5000;
+		while (ElasticsearchSearchCoalescer.getCoalesced() == coalesced) {
+			assertTrue("Identical search did not join the search in flight", System.currentTimeMillis() < deadline);
+			Thread.sleep(1);
+		}
+		release.countDown();
+
+		assertFailedWith(failure, leader);
+		assertFailedWith(failure, follower);
+		verify(followerBuilder, never()).execute();
+	}
+
+	@Test
+	public void testFailedExecuteIsNotJoinedLater() {
+		RuntimeException failure = new IllegalStateException("Node closed");
+		SearchRequestBuilder searchBuilder = mock(SearchRequestBuilder.class);
+		when(searchBuilder.execute()).thenThrow(failure);
+		for (int i = 0; i < 2; i++) {
+			try {
+				ElasticsearchSearchCoalescer.execute(searchBuilder, "retried", "k1");
+				fail("Search should have failed");
+			} catch (IllegalStateException e) {
+				assertSame(failure, e);
+			}
+		}
+		verify(searchBuilder, times(2)).execute();
+	}
+
+	private Callable<ListenableActionFuture<SearchResponse>> execute(final SearchRequestBuilder searchBuilder, final String type, final String key) {
+		return new Callable<ListenableActionFuture<SearchResponse>>() {
+			public ListenableActionFuture<SearchResponse> call() {
+				return ElasticsearchSearchCoalescer.execute(searchBuilder, type, key);
+			}
+		};
+	}
+
+	private void assertFailedWith(RuntimeException failure, Future<ListenableActionFuture<SearchResponse>> search) throws Exception {
+		try {
+			search.get(5, TimeUnit.SECONDS);
+			fail("Search should have failed");
+		} catch (ExecutionException e) {
+			assertEquals(failure, e.getCause());
+		}
+	}
+}
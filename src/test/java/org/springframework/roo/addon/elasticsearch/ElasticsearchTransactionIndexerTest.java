@@ -0,0 +1,140 @@
+package org.springframework.roo.addon.elasticsearch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+/**
+ * Unit tests of the ElasticsearchTransactionIndexer runtime template.
+ *
+ * @since 1.1
+ *
+ */
+public class ElasticsearchTransactionIndexerTest {
+
+	private ElasticsearchTransactionIndexer.Callback<String> callback;
+
+	@Before
+	@SuppressWarnings("unchecked")
+	public void setUp() {
+		callback = mock(ElasticsearchTransactionIndexer.Callback.class);
+		TransactionSynchronizationManager.initSynchronization();
+	}
+
+	@After
+	public void tearDown() {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+	}
+
+	@Test
+	public void testActiveOnlyWithinTransaction() {
+		assertTrue(ElasticsearchTransactionIndexer.isActive());
+		TransactionSynchronizationManager.clearSynchronization();
+		assertFalse(ElasticsearchTransactionIndexer.isActive());
+	}
+
+	@Test
+	public void testNothingIsIndexedBeforeCommit() {
+		ElasticsearchTransactionIndexer.register(String.class, 1L, "joe", callback);
+		verify(callback, never()).index(any(Collection.class));
+		assertEquals(1, TransactionSynchronizationManager.getSynchronizations().size());
+
+		commit();
+		verify(callback).index(Arrays.asList("joe"));
+		verify(callback, never()).delete(any(Collection.class));
+	}
+
+	@Test
+	public void testEntityWrittenTwiceIsIndexedOnce() {
+		ElasticsearchTransactionIndexer.register(String.class, 1L, "joe", callback);
+		ElasticsearchTransactionIndexer.register(String.class, 2L, "ann", callback);
+		ElasticsearchTransactionIndexer.register(String.class, 1L, "joseph", callback);
+		assertEquals(1, TransactionSynchronizationManager.getSynchronizations().size());
+
+		commit();
+		verify(callback).index(Arrays.asList("joseph", "ann"));
+	}
+
+	@Test
+	public void testEntitiesWithoutIdentifierAreKeptApart() {
+		ElasticsearchTransactionIndexer.register(String.class, null, "joe", callback);
+		ElasticsearchTransactionIndexer.register(String.class, null, "ann", callback);
+
+		commit();
+		verify(callback).index(Arrays.asList("joe", "ann"));
+	}
+
+	@Test
+	public void testEntityRemovedAfterWriteIsOnlyDeleted() {
+		ElasticsearchTransactionIndexer.register(String.class, 1L, "joe", callback);
+		ElasticsearchTransactionIndexer.registerDelete(String.class, 1L, "joe", callback);
+
+		commit();
+		verify(callback).delete(Arrays.asList("joe"));
+		verify(callback, never()).index(any(Collection.class));
+	}
+
+	@Test
+	public void testDeletesAreSentBeforeIndexRequests() {
+		ElasticsearchTransactionIndexer.register(String.class, 1L, "joe", callback);
+		ElasticsearchTransactionIndexer.registerDelete(String.class, 2L, "ann", callback);
+
+		commit();
+		InOrder order = inOrder(callback);
+		order.verify(callback).delete(Arrays.asList("ann"));
+		order.verify(callback).index(Arrays.asList("joe"));
+	}
+
+	@Test
+	public void testNothingIsIndexedOnRollback() {
+		ElasticsearchTransactionIndexer.register(String.class, 1L, "joe", callback);
+		ElasticsearchTransactionIndexer.registerDelete(String.class, 2L, "ann", callback);
+
+		TransactionSynchronizationUtils.invokeAfterCompletion(TransactionSynchronizationManager.getSynchronizations(), TransactionSynchronization.STATUS_ROLLED_BACK);
+		verify(callback, never()).index(any(Collection.class));
+		verify(callback, never()).delete(any(Collection.class));
+		assertFalse(TransactionSynchronizationManager.hasResource(resourceKey()));
+	}
+
+	@Test
+	public void testNextTransactionStartsEmpty() {
+		ElasticsearchTransactionIndexer.register(String.class, 1L, "joe", callback);
+		commit();
+		assertFalse(TransactionSynchronizationManager.hasResource(resourceKey()));
+
+		TransactionSynchronizationManager.initSynchronization();
+		ElasticsearchTransactionIndexer.register(String.class, 2L, "ann", callback);
+		commit();
+		verify(callback).index(Arrays.asList("joe"));
+		verify(callback).index(Arrays.asList("ann"));
+	}
+
+	// Runs the synchronizations as the transaction manager does on commit, then ends the transaction
+	private void commit() {
+		TransactionSynchronizationUtils.triggerAfterCommit();
+		TransactionSynchronizationUtils.invokeAfterCompletion(TransactionSynchronizationManager.getSynchronizations(), TransactionSynchronization.STATUS_COMMITTED);
+		TransactionSynchronizationManager.clearSynchronization();
+	}
+
+	private String resourceKey() {
+		return ElasticsearchTransactionIndexer.class.getName() + "." + String.class.getName();
+	}
+}
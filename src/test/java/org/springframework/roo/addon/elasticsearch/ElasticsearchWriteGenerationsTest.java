@@ -0,0 +1,129 @@
+package org.springframework.roo.addon.elasticsearch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+
+import org.junit.Test;
+
+/**
+ * Unit tests of the entity tags derived by the ElasticsearchWriteGenerations runtime template.
+ *
+ * @since 1.1
+ *
+ */
+public class ElasticsearchWriteGenerationsTest {
+
+	@Test
+	public void testSameRequestHasStableTag() {
+		String etag = ElasticsearchWriteGenerations.etag("stable", "1s", "name:joe", 0, 10, new String[] { "name", "age" });
+		assertNotNull(etag);
+		assertTrue(etag, etag.matches("\"stable-[0-9a-z]+-0-[0-9a-f]{40}\""));
+		assertEquals(etag, ElasticsearchWriteGenerations.etag("stable", "1s", "name:joe", 0, 10, new String[] { "name", "age" }));
+	}
+
+	@Test
+	public void testDifferentRequestsHaveDifferentTags() {
+		assertDistinct(new Object[] { "ab", "c" }, new Object[] { "a", "bc" });
+		assertDistinct(new Object[] { new String[] { "a", "b" } }, new Object[] { "a", "b" });
+		assertDistinct(new Object[] { new String[] { "a" }, "b" }, new Object[] { new String[] { "a", "b" } });
+		assertDistinct(new Object[] { null }, new Object[] { "null" });
+		assertDistinct(new Object[] { 1, 0 }, new Object[] { 10 });
+	}
+
+	@Test
+	public void testTagChangesWithGeneration() {
+		String before = ElasticsearchWriteGenerations.etag("advanced", "0s", "name:joe");
+		ElasticsearchWriteGenerations.advance("advanced");
+		String after = ElasticsearchWriteGenerations.etag("advanced", "0s", "name:joe");
+		assertNotNull(after);
+		assertFalse(before.equals(after));
+	}
+
+	@Test
+	public void testNoTagUntilWriteIsSearchable() {
+		ElasticsearchWriteGenerations.advance("unrefreshed");
+		assertNull(ElasticsearchWriteGenerations.etag("unrefreshed", "1m", "name:joe"));
+	}
+
+	@Test
+	public void testNoTagWithoutPeriodicRefresh() {
+		assertNull(ElasticsearchWriteGenerations.etag("manual", "-1", "name:joe"));
+	}
+
+	@Test
+	public void testTagChangesWithRestart() throws Exception {
+		ElasticsearchWriteGenerations.advance("restarted");
+		String before = ElasticsearchWriteGenerations.etag("restarted", "0s", "name:joe");
+
+		// The same number of writes counted again by a fresh copy of the class, as after a restart
+		Class<?> restarted = new RestartedClassLoader().loadClass(ElasticsearchWriteGenerations.class.getName());
+		restarted.getMethod("advance", String.class).invoke(null, "restarted");
+		Method etag = restarted.getMethod("etag", String.class, String.class, Object[].class);
+		String after = (String) etag.invoke(null, "restarted", "0s", new Object[] { "name:joe" });
+		assertNotNull(after);
+		assertFalse(before + " must differ from " + after, before.equals(after));
+	}
+
+	private void assertDistinct(Object[] request, Object[] otherRequest) {
+		String etag = ElasticsearchWriteGenerations.etag("distinct", "1s", request);
+		String otherEtag = ElasticsearchWriteGenerations.etag("distinct", "1s", otherRequest);
+		assertFalse(etag + " must differ from " + otherEtag, etag.equals(otherEtag));
+	}
+
+	/**
+	 * Loads its own copy of ElasticsearchWriteGenerations, with generations and epoch of its own.
+	 */
+	private static class RestartedClassLoader extends ClassLoader {
+
+		RestartedClassLoader() {
+			super(ElasticsearchWriteGenerationsTest.class.getClassLoader());
+		}
+
+		@Override
+		protected synchronized Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+			String generations = ElasticsearchWriteGenerations.class.getName();
+			if (!name.equals(generations) && !name.startsWith(generations + "$")) {
+				return super.loadClass(name, resolve);
+			}
+			Class<?> loaded = findLoadedClass(name);
+			if (loaded == null) {
+				byte[] bytes = readClass(name);
+				loaded = defineClass(name, bytes, 0, bytes.length);
+			}
+			if (resolve) {
+				resolveClass(loaded);
+			}
+			return loaded;
+		}
+
+		private byte[] readClass(String name) throws ClassNotFoundException {
+			InputStream in = getParent().getResourceAsStream(name.replace('.', '/') + ".class");
+			if (in == null) {
+				throw new ClassNotFoundException(name);
+			}
+			try {
+				try {
+					ByteArrayOutputStream out = new ByteArrayOutputStream();
+					byte[] buffer = new byte[4096];
+					int read;
+					while ((read = in.read(buffer)) != -1) {
+						out.write(buffer, 0, read);
+					}
+					return out.toByteArray();
+				} finally {
+					in.close();
+				}
+			} catch (IOException e) {
+				throw new ClassNotFoundException(name, e);
+			}
+		}
+	}
+}